@@ -1,15 +1,241 @@
+import multiprocessing
+import os
+import threading
+from argparse import ArgumentParser
 
 import mx
 from mx_compiler import run_java
 
 _suite = mx.suite('graal-generator-tests')
 
+_main_class = "at.jku.ssw.java.bytecode.generator.tests.GraalGeneratorTest"
+
+# the exit code of a JVM that exceeded its resource limits (--recycle-*)
+_recycle_exit_code = 75
+
+def _java_args(args):
+    vmargs = mx.get_runtime_jvm_args(['GRAAL_GENERATOR_TESTS'])
+
+    return vmargs + ['-XX:-UseJVMCIClassLoader'] + [_main_class] + args
+
 def compile_generated(args=None):
     """verify compiler using generated classes"""
-    vmargs = mx.get_runtime_jvm_args(['GRAAL_GENERATOR_TESTS'])
+    args = args or []
+
+    # a recycled JVM resumes from its checkpoint in a fresh one
+    rc = run_java(_java_args(args), nonZeroIsFatal=False)
+    while rc == _recycle_exit_code:
+        mx.log('restarting the recycled JVM')
+
+        # without a checkpoint, it continues after the classes in its report
+        report = _option_value(args, '--report')
+        if _option_value(args, '--checkpoint') is None and report is not None:
+            skip = _resume_skip(report, int(_option_value(args, '--skip') or 0))
+            args = _without_option(args, None, '--skip') + ['--skip', str(skip)]
+
+        rc = run_java(_java_args(args), nonZeroIsFatal=False)
+
+    if rc != 0:
+        mx.abort(rc)
+
+def _read_entries(report):
+    """returns the (status, class name, index) entries that a worker reported so far"""
+    if not os.path.exists(report):
+        return []
+
+    entries = []
+    with open(report) as f:
+        for line in f.read().splitlines():
+            parts = line.split()
+            if len(parts) >= 2:
+                # the index is the position in the (shard's) sequence
+                entries.append((parts[0], parts[1], int(parts[2]) if len(parts) > 2 else None))
+    return entries
+
+def _read_report(report):
+    """returns the (status, class name) pairs of all classes with a final status"""
+    return [(status, name) for status, name, _ in _read_entries(report) if status != 'STARTED']
+
+def _unfinished(report):
+    """returns the (class name, index) pairs whose test started but never finished"""
+    started = {}
+    for status, name, index in _read_entries(report):
+        if status == 'STARTED':
+            started[name] = index
+        else:
+            started.pop(name, None)
+    return sorted(started.items(), key=lambda e: e[1])
+
+def _resume_skip(report, skip, crashed=()):
+    """returns the length of the leading sequence (from skip) that is reported or crashed"""
+    done = set(index for status, _, index in _read_entries(report) if status != 'STARTED' and index is not None)
+    done.update(crashed)
+    while skip in done:
+        skip += 1
+    return skip
+
+def _option_value(args, long):
+    """returns the value of the last occurrence of the given option (or None)"""
+    value = None
+    for i, arg in enumerate(args):
+        if arg == long and i + 1 < len(args):
+            value = args[i + 1]
+        elif arg.startswith(long + '='):
+            value = arg[len(long) + 1:]
+    return value
+
+def _without_option(args, short, long):
+    """removes all occurrences of the given option (and its value) from the arguments"""
+    result = []
+    it = iter(args)
+    for arg in it:
+        if arg in (short, long):
+            next(it, None)
+        elif not arg.startswith(long + '=') and not (short and arg.startswith(short) and not arg.startswith('--')):
+            result.append(arg)
+    return result
+
+def _run_shard(shard, shards, outdir, args, max_restarts, crashes):
+    """runs one worker JVM over its shard and restarts it whenever it dies"""
+    report = os.path.join(outdir, 'shard-%d.txt' % shard)
+    log = os.path.join(outdir, 'shard-%d.log' % shard)
+    crashdir = os.path.join(outdir, 'crashes')
+
+    restarts = 0
+    while True:
+        # continue after the classes that were already tested or crashed
+        skip = _resume_skip(report, 0, [index for index, _ in crashes[shard]])
+
+        with open(log, 'a') as f:
+            rc = run_java(_java_args(args + [
+                '--shard', '%d/%d' % (shard, shards),
+                '--skip', str(skip),
+                '--report', report,
+                '--crash-dir', crashdir
+            ]), nonZeroIsFatal=False, out=f.write, err=f.write)
+
+        if rc == 0:
+            return
+
+        # the worker exceeded its resource limits after its last report
+        if rc == _recycle_exit_code:
+            continue
+
+        # the class whose test started but never finished killed the worker
+        # (its class file remains in the crash directory)
+        unfinished = _unfinished(report)
+        if not unfinished:
+            mx.warn('worker %d died (exit code %d) outside of a test' % (shard, rc))
+        for name, index in unfinished:
+            path = os.path.join(crashdir, name + '.class')
+            crashes[shard].append((index, path))
+            mx.warn('worker %d died (exit code %d) while testing %s' % (shard, rc, path))
+
+        restarts += 1
+        if restarts > max_restarts:
+            mx.warn('worker %d exceeded %d restarts, giving up' % (shard, max_restarts))
+            return
+
+def compile_generated_sharded(args=None):
+    """verify compiler using generated classes in several worker processes"""
+    parser = ArgumentParser(prog='mx graal_generator_tests_sharded')
+    parser.add_argument('-k', '--processes', type=int, default=multiprocessing.cpu_count(),
+                        help='the number of worker JVMs')
+    parser.add_argument('--campaign-dir', default='campaign',
+                        help='the directory for the worker reports and logs')
+    parser.add_argument('--max-restarts', type=int, default=10,
+                        help='the number of times a single worker is restarted')
+    parsed, java_args = parser.parse_known_args(args or [])
+
+    if parsed.processes <= 0:
+        mx.abort('The number of processes must be greater than 0')
+
+    # each worker tests its classes one at a time, so that the class that
+    # kills it is known
+    if _without_option(java_args, '-w', '--workers') != java_args:
+        mx.warn('ignoring -w, the classes of each shard are tested sequentially (use -k instead)')
+        java_args = _without_option(java_args, '-w', '--workers')
+
+    # the shards would overwrite each other's checkpoint, and a checkpoint
+    # would override the skip that steps over crashed classes on restarts
+    if _option_value(java_args, '--checkpoint') is not None:
+        mx.warn('ignoring --checkpoint, the shards resume from their reports')
+        java_args = _without_option(java_args, None, '--checkpoint')
+
+    outdir = parsed.campaign_dir
+    if not os.path.isdir(outdir):
+        os.makedirs(outdir)
+
+    crashes = [[] for _ in range(parsed.processes)]
+    workers = [threading.Thread(target=_run_shard,
+                                args=(shard, parsed.processes, outdir, java_args, parsed.max_restarts, crashes))
+               for shard in range(parsed.processes)]
+
+    for w in workers:
+        w.start()
+    for w in workers:
+        w.join()
+
+    # merge the individual reports
+    passed = 0
+    compiled = 0
+    mismatches = []
+    errors = []
+    crashed = []
+    duplicates = 0
+    for shard in range(parsed.processes):
+        for status, name in _read_report(os.path.join(outdir, 'shard-%d.txt' % shard)):
+            if status == 'PASS':
+                passed += 1
+            elif status == 'ERROR':
+                errors.append(name)
+            elif status == 'DUPLICATE':
+                duplicates += 1
+            elif status == 'COMPILED':
+                compiled += 1
+            elif status == 'CRASH':
+                # crashed an isolated worker (--isolate) but not the shard
+                crashed.append(os.path.join(outdir, 'crashes', name + '.class'))
+            else:
+                mismatches.append(name)
+
+    summary = os.path.join(outdir, 'summary.txt')
+    with open(summary, 'w') as f:
+        f.write('classes: %d\n' % (passed + compiled + duplicates + len(mismatches) + len(errors) + len(crashed) + sum(len(c) for c in crashes)))
+        f.write('passed: %d\n' % passed)
+        f.write('compiled: %d\n' % compiled)
+        f.write('duplicates: %d\n' % duplicates)
+        f.write('mismatches: %d\n' % len(mismatches))
+        for name in mismatches:
+            f.write('  %s\n' % name)
+        f.write('errors: %d\n' % len(errors))
+        for name in errors:
+            f.write('  %s\n' % name)
+        f.write('crashes: %d\n' % (len(crashed) + sum(len(c) for c in crashes)))
+        for path in crashed:
+            f.write('  %s\n' % path)
+        for shard_crashes in crashes:
+            for _, path in shard_crashes:
+                f.write('  %s\n' % path)
+
+    mx.log('%d passed, %d mismatches, %d errors, %d crashes - see %s' % (passed, len(mismatches), len(errors), len(crashed) + sum(len(c) for c in crashes), summary))
+
+def generator_benchmarks(args=None):
+    """run the JMH benchmarks over the generation templates"""
+    vmargs = mx.get_runtime_jvm_args(['GRAAL_GENERATOR_TESTS_BENCHMARKS'])
+
+    # the forked benchmark JVMs inherit the arguments of this JVM
+    run_java(vmargs + ['-XX:-UseJVMCIClassLoader', 'org.openjdk.jmh.Main'] + (args or []))
+
+def generator_benchmark_corpus(args=None):
+    """generate the class corpus of the JMH benchmarks (once per corpus version)"""
+    vmargs = mx.get_runtime_jvm_args(['GRAAL_GENERATOR_TESTS_BENCHMARKS'])
 
-    run_java(vmargs + ['-XX:-UseJVMCIClassLoader'] + ["at.jku.ssw.java.bytecode.generator.tests.GraalGeneratorTest"] + args)
+    run_java(vmargs + (args or []) + ['at.jku.ssw.java.bytecode.generator.tests.benchmarks.BenchmarkCorpus'])
 
 mx.update_commands(_suite, {
-    'graal_generator_tests' : [compile_generated, '[args...]']
+    'graal_generator_tests' : [compile_generated, '[args...]'],
+    'graal_generator_tests_sharded' : [compile_generated_sharded, '[-k <processes>] [args...]'],
+    'graal_generator_benchmarks' : [generator_benchmarks, '[jmh args...]'],
+    'graal_generator_benchmark_corpus' : [generator_benchmark_corpus, '[vm args...]'],
 })
@@ -48,7 +48,30 @@ suite = {
                 "compiler:GRAAL",
                 "mx:JUNIT",
             ],
-            "javaCompliance" : "8+",
+            "javaCompliance" : "11+",
+            "workingSets" : "Graal, HotSpot, Test",
+        },
+
+        "at.jku.ssw.java.bytecode.generator.tests.benchmarks" : {
+            "subDir" : "projects",
+            "sourceDirs" : ["src"],
+            "dependencies" : [
+                "at.jku.ssw.java.bytecode.generator.tests",
+                "mx:JMH_1_21",
+            ],
+            "annotationProcessors" : ["mx:JMH_1_21"],
+            "javaCompliance" : "11+",
+            "workingSets" : "Graal, HotSpot, Test",
+        },
+
+        "at.jku.ssw.java.bytecode.generator.tests.test" : {
+            "subDir" : "projects",
+            "sourceDirs" : ["src"],
+            "dependencies" : [
+                "at.jku.ssw.java.bytecode.generator.tests",
+                "mx:JUNIT",
+            ],
+            "javaCompliance" : "11+",
             "workingSets" : "Graal, HotSpot, Test",
         },
 
@@ -65,6 +88,33 @@ suite = {
                 "mx:JUNIT",
                 "JBGENERATOR"
             ],
+        },
+
+        "GRAAL_GENERATOR_TESTS_BENCHMARKS": {
+            "subDir" : "projects",
+            "dependencies" : [
+                "at.jku.ssw.java.bytecode.generator.tests.benchmarks"
+            ],
+            "distDependencies" : [
+                "GRAAL_GENERATOR_TESTS"
+            ],
+            "exclude" : [
+                "mx:JMH_1_21"
+            ],
+        },
+
+        "GRAAL_GENERATOR_TESTS_TEST": {
+            "subDir" : "projects",
+            "testDistribution" : True,
+            "dependencies" : [
+                "at.jku.ssw.java.bytecode.generator.tests.test"
+            ],
+            "distDependencies" : [
+                "GRAAL_GENERATOR_TESTS"
+            ],
+            "exclude" : [
+                "mx:JUNIT"
+            ],
         }
     },
 }
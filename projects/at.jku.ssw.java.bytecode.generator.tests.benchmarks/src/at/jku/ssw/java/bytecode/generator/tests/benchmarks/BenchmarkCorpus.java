@@ -0,0 +1,104 @@
+package at.jku.ssw.java.bytecode.generator.tests.benchmarks;
+
+import at.jku.ssw.java.bytecode.generator.tests.generation.ClassFileGenerator;
+import at.jku.ssw.java.bytecode.generator.tests.generation.classes.Generative;
+import org.openjdk.jmh.annotations.Param;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The fixed corpus of classes that the {@link GenerativeBenchmark} operates
+ * on. Since the generator is not seeded, the corpus is generated once
+ * (see {@link #main(String[])}) into a directory that is named after the
+ * corpus version and then reused by all benchmark runs, so that different
+ * Graal revisions are compared on the same classes.
+ * The location may be overridden by the {@value #PROPERTY} system property,
+ * e.g. to use a corpus that was archived elsewhere.
+ */
+public final class BenchmarkCorpus {
+    private BenchmarkCorpus() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The version of the corpus. It must be increased whenever the corpus
+     * is regenerated (e.g. because the templates changed), so that results
+     * of different corpora are not compared by accident.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The system property that overrides the location of the corpus.
+     */
+    public static final String PROPERTY = "benchmark.corpus";
+
+    /**
+     * The package that contains the {@link Generative} templates.
+     */
+    private static final String TEMPLATE_PACKAGE = Generative.class.getPackage().getName();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Access
+
+    /**
+     * @return the directory that contains the corpus
+     */
+    public static Path directory() {
+        String location = System.getProperty(PROPERTY);
+        return location != null
+                ? Paths.get(location)
+                : Paths.get("./benchmark_corpus", "v" + VERSION);
+    }
+
+    /**
+     * Determines the name of the corpus class for the given parameters.
+     *
+     * @param template The name of the template
+     * @param index    The index of the class in the corpus
+     * @return the name of the class
+     */
+    public static String className(String template, int index) {
+        return template + index;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Generation
+
+    /**
+     * Generates a class for each template and corpus index that the
+     * {@link GenerativeBenchmark} is parameterized with.
+     * An existing corpus is never overwritten.
+     *
+     * @param args Unused
+     * @throws Exception if the corpus already exists or a class cannot be
+     *                   generated
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = directory();
+        if (Files.exists(directory))
+            throw new IOException("The benchmark corpus " + directory + " already exists");
+
+        String[] templates = GenerativeBenchmark.class.getField("template").getAnnotation(Param.class).value();
+        String[] indices = GenerativeBenchmark.class.getField("corpusIndex").getAnnotation(Param.class).value();
+
+        Files.createDirectories(directory);
+        ClassFileGenerator generator = new ClassFileGenerator(directory, 1);
+        for (String template : templates) {
+            Class<? extends Generative> clazz = Class.forName(TEMPLATE_PACKAGE + "." + template)
+                    .asSubclass(Generative.class);
+
+            for (String index : indices)
+                generator.generate(clazz, Integer.parseInt(index));
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,103 @@
+package at.jku.ssw.java.bytecode.generator.tests.benchmarks;
+
+import at.jku.ssw.java.bytecode.generator.tests.loading.ClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.results.CompilationResult;
+import at.jku.ssw.java.bytecode.generator.tests.runtime.CompiledRunner;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import org.graalvm.compiler.hotspot.HotSpotGraalCompiler;
+
+import java.util.logging.Logger;
+
+/**
+ * {@link CompiledRunner} that exposes the individual steps (loading,
+ * compilation and execution of the installed code) to the benchmarks.
+ */
+public class BenchmarkRunner extends CompiledRunner {
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(BenchmarkRunner.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Initializes a new benchmark runner.
+     *
+     * @param classes  The source from which class files are loaded
+     * @param runtime  The runtime reference
+     * @param compiler The Graal compiler reference
+     */
+    public BenchmarkRunner(ClassSource classes,
+                           HotSpotJVMCIRuntime runtime,
+                           HotSpotGraalCompiler compiler) {
+        super(classes, runtime, compiler);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Benchmark steps
+
+    /**
+     * Loads the given class using a fresh class loader.
+     *
+     * @param className The name of the class
+     * @return the loaded class
+     * @throws ClassNotFoundException if the class does not exist
+     */
+    public Class<?> load(String className) throws ClassNotFoundException {
+        return reloadClass(className);
+    }
+
+    /**
+     * Compiles all methods of the given class without profiling information.
+     *
+     * @param clazz The class whose methods are compiled
+     * @return the installed code
+     * @throws NoSuchMethodException if the class has no main method
+     */
+    public CompilationResult compileAll(Class<?> clazz) throws NoSuchMethodException {
+        return compile(clazz, false);
+    }
+
+    /**
+     * Invalidates all installed code of the given compilation result.
+     *
+     * @param compiled The compiled class
+     */
+    public void discard(CompilationResult compiled) {
+        invalidate(compiled);
+    }
+
+    /**
+     * Executes the installed main method.
+     *
+     * @param compiled The compiled class
+     * @return the result of the main method
+     * @throws InvalidInstalledCodeException if the code was invalidated
+     */
+    public Object run(CompilationResult compiled) throws InvalidInstalledCodeException {
+        return compiled.main().executeVarargs((Object) new String[0]);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Logger logger() {
+        return logger;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
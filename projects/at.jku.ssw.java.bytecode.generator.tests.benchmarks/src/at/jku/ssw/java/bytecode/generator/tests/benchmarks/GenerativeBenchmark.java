@@ -0,0 +1,170 @@
+package at.jku.ssw.java.bytecode.generator.tests.benchmarks;
+
+import at.jku.ssw.java.bytecode.generator.tests.generation.classes.Generative;
+import at.jku.ssw.java.bytecode.generator.tests.loading.DirectoryClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.results.CompilationResult;
+import at.jku.ssw.java.bytecode.generator.tests.utils.StaticFieldGuard;
+import jdk.vm.ci.code.InvalidInstalledCodeException;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import org.graalvm.compiler.hotspot.HotSpotGraalCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmarks that measure the compile latency of all methods of a
+ * generated class and the execution time of the compiled code for each
+ * {@link Generative} template.
+ * The classes are taken from a fixed {@link BenchmarkCorpus} (one class
+ * per template and corpus index), so that all forks and all compared Graal
+ * revisions operate on the same classes.
+ * The static fields of the class are reset before each execution, so that
+ * every invocation starts from the state after the class initialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(3)
+public class GenerativeBenchmark {
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The parent logger of the test suite.
+     * The reference is kept to retain its level.
+     */
+    private static final Logger SUITE_LOGGER = Logger.getLogger("at.jku.ssw.java.bytecode.generator.tests");
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Parameters
+
+    /**
+     * The template that the benchmarked class is generated from.
+     */
+    @Param({
+            "SimpleClass",
+            "ComplexClass",
+            "LotsOfMath",
+            "ManyLoops",
+            "BlockExits",
+            "ManyOverloads",
+            "HighBranchingFactor"
+    })
+    public String template;
+
+    /**
+     * The index of the class in the corpus.
+     */
+    @Param({"0", "1", "2"})
+    public int corpusIndex;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region State
+
+    private BenchmarkRunner runner;
+    private Class<?> clazz;
+    private CompilationResult compiled;
+    private StaticFieldGuard initial;
+    private PrintStream outDefault;
+    private PrintStream errDefault;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Setup / tear down
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        // the per-method log messages would distort the measurements
+        SUITE_LOGGER.setLevel(java.util.logging.Level.WARNING);
+
+        String className = BenchmarkCorpus.className(template, corpusIndex);
+
+        // the corpus is never generated implicitly, since the classes
+        // would differ between the compared runs
+        Path corpus = BenchmarkCorpus.directory();
+        if (!Files.exists(corpus.resolve(className + ".class")))
+            throw new IllegalStateException("Class " + className + " is missing in the benchmark corpus " + corpus
+                    + " - generate it with mx graal_generator_benchmark_corpus");
+
+        HotSpotJVMCIRuntime jvmciRuntime = HotSpotJVMCIRuntime.runtime();
+        runner = new BenchmarkRunner(
+                new DirectoryClassSource(corpus),
+                jvmciRuntime,
+                (HotSpotGraalCompiler) jvmciRuntime.getCompiler()
+        );
+
+        clazz = runner.load(className);
+        // initializes the class
+        initial = StaticFieldGuard.snapshot(clazz);
+        compiled = runner.compileAll(clazz);
+
+        // discard the output of the generated programs
+        outDefault = System.out;
+        errDefault = System.err;
+        PrintStream discard = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        System.setOut(discard);
+        System.setErr(discard);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        initial.restore(clazz);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setErr(errDefault);
+        System.setOut(outDefault);
+        runner.discard(compiled);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Benchmarks
+
+    /**
+     * Measures the latency of compiling all methods of the class.
+     *
+     * @return the compilation result
+     * @throws Exception if the compilation fails
+     */
+    @Benchmark
+    public CompilationResult compile() throws Exception {
+        CompilationResult result = runner.compileAll(clazz);
+        runner.discard(result);
+        return result;
+    }
+
+    /**
+     * Measures the execution time of the compiled main method.
+     *
+     * @return the result of the main method
+     * @throws InvalidInstalledCodeException if the compiled code was
+     *                                       invalidated
+     */
+    @Benchmark
+    public Object execute() throws InvalidInstalledCodeException {
+        return runner.run(compiled);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,138 @@
+package at.jku.ssw.java.bytecode.generator.tests.campaign;
+
+import at.jku.ssw.java.bytecode.generator.tests.generation.scheduling.BanditScheduler;
+import at.jku.ssw.java.bytecode.generator.tests.generation.scheduling.RoundRobinScheduler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the progress tracking and the save/resume round trip of
+ * {@link Checkpoint}.
+ */
+public class CheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The checkpoint file.
+     */
+    private Path file;
+
+    @Before
+    public void setUp() {
+        file = folder.getRoot().toPath().resolve("campaign.checkpoint");
+    }
+
+    /**
+     * @return the properties that are stored in the checkpoint file
+     * @throws IOException if the file cannot be read
+     */
+    private Properties stored() throws IOException {
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            p.load(in);
+        }
+        return p;
+    }
+
+    @Test
+    public void startsAtTheSkippedGenerations() throws IOException {
+        Checkpoint checkpoint = new Checkpoint(file, new RoundRobinScheduler(), 5);
+
+        assertEquals(5, checkpoint.completed());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void countsOnlyLeadingCompletedGenerations() throws IOException {
+        Checkpoint checkpoint = new Checkpoint(file, new RoundRobinScheduler(), 0);
+
+        checkpoint.complete(1);
+        checkpoint.complete(3);
+        assertEquals(0, checkpoint.completed());
+
+        checkpoint.complete(0);
+        assertEquals(2, checkpoint.completed());
+
+        checkpoint.complete(2);
+        assertEquals(4, checkpoint.completed());
+    }
+
+    @Test
+    public void ignoresSkippedGenerations() throws IOException {
+        Checkpoint checkpoint = new Checkpoint(file, new RoundRobinScheduler(), 3);
+
+        checkpoint.complete(1);
+        assertEquals(3, checkpoint.completed());
+
+        checkpoint.complete(3);
+        assertEquals(4, checkpoint.completed());
+    }
+
+    @Test
+    public void resumesFromTheSavedProgress() throws IOException, InterruptedException {
+        BanditScheduler scheduler = new BanditScheduler(42);
+        scheduler.record("SimpleClass", 2_000_000_000L, 1);
+
+        try (Checkpoint checkpoint = new Checkpoint(file, scheduler, 0)) {
+            checkpoint.complete(0);
+            checkpoint.complete(1);
+            checkpoint.complete(3);
+            Thread.sleep(20);
+        }
+
+        Properties stored = stored();
+        assertEquals("2", stored.getProperty("completed"));
+        assertEquals("3", stored.getProperty("tested"));
+        assertEquals("42", stored.getProperty("bandit.seed"));
+        long elapsed = Long.parseLong(stored.getProperty("elapsed"));
+        assertTrue(elapsed >= 20_000_000L);
+
+        // the skip is only used without a checkpoint
+        BanditScheduler resumedScheduler = new BanditScheduler(7);
+        Checkpoint resumed = new Checkpoint(file, resumedScheduler, 100);
+        assertEquals(2, resumed.completed());
+        assertTrue(resumed.elapsed() >= elapsed);
+
+        Properties state = new Properties();
+        resumedScheduler.save(state);
+        assertEquals("42", state.getProperty("bandit.seed"));
+        assertEquals("1", state.getProperty("bandit.SimpleClass.findings"));
+
+        // generations beyond the leading ones are tested again,
+        // but the number of tested classes accumulates over runs
+        resumed.complete(2);
+        resumed.save();
+        assertEquals("3", stored().getProperty("completed"));
+        assertEquals("4", stored().getProperty("tested"));
+    }
+
+    @Test
+    public void savesPeriodically() throws IOException, InterruptedException {
+        try (Checkpoint checkpoint = new Checkpoint(file, new RoundRobinScheduler(), 0)) {
+            checkpoint.complete(0);
+            checkpoint.saveEvery(1);
+
+            for (int i = 0; i < 50 && !Files.exists(file); i++)
+                Thread.sleep(100);
+
+            assertEquals("1", stored().getProperty("completed"));
+        }
+
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(1, files.count());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package at.jku.ssw.java.bytecode.generator.tests.generation;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the in-memory and persistent behavior of {@link SeenSet}.
+ */
+public class SeenSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recognizesDigestsWithinTheCampaign() throws IOException {
+        try (SeenSet seen = new SeenSet()) {
+            assertTrue(seen.add(new byte[]{1, 2}));
+            assertFalse(seen.add(new byte[]{1, 2}));
+            assertTrue(seen.add(new byte[]{1, 3}));
+            assertEquals(2, seen.size());
+        }
+    }
+
+    @Test
+    public void onlyPersistsFinishedPrograms() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("seen.txt");
+
+        try (SeenSet seen = new SeenSet(file)) {
+            seen.add(new byte[]{0x0a, (byte) 0xff});
+            seen.add(new byte[]{0x01});
+            seen.persist(new byte[]{0x0a, (byte) 0xff});
+        }
+
+        assertEquals(Collections.singletonList("0aff"), Files.readAllLines(file, StandardCharsets.UTF_8));
+
+        // the unfinished program is tested again by the next campaign
+        try (SeenSet seen = new SeenSet(file)) {
+            assertEquals(1, seen.size());
+            assertFalse(seen.add(new byte[]{0x0a, (byte) 0xff}));
+            assertTrue(seen.add(new byte[]{0x01}));
+        }
+    }
+
+    @Test
+    public void appendsToExistingFiles() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("seen.txt");
+        Files.write(file, Arrays.asList("0102", "", "  0304  "), StandardCharsets.UTF_8);
+
+        try (SeenSet seen = new SeenSet(file)) {
+            assertEquals(2, seen.size());
+            assertFalse(seen.add(new byte[]{3, 4}));
+            assertTrue(seen.add(new byte[]{5}));
+            seen.persist(new byte[]{5});
+        }
+
+        assertEquals(Arrays.asList("0102", "", "  0304  ", "05"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void persistsNothingInMemory() throws IOException {
+        try (SeenSet seen = new SeenSet()) {
+            seen.add(new byte[]{1});
+            seen.persist(new byte[]{1});
+            assertEquals(1, seen.size());
+        }
+    }
+}
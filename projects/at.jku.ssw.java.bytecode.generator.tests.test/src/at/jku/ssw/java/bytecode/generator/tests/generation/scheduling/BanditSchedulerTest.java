@@ -0,0 +1,123 @@
+package at.jku.ssw.java.bytecode.generator.tests.generation.scheduling;
+
+import at.jku.ssw.java.bytecode.generator.tests.generation.classes.Generative;
+import at.jku.ssw.java.bytecode.generator.tests.generation.classes.LotsOfMath;
+import at.jku.ssw.java.bytecode.generator.tests.generation.classes.SimpleClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that {@link BanditScheduler} continues a saved schedule.
+ */
+public class BanditSchedulerTest {
+
+    /**
+     * The templates of the schedules.
+     */
+    private static final List<Class<? extends Generative>> TEMPLATES = Arrays.asList(SimpleClass.class, LotsOfMath.class);
+
+    /**
+     * Picks the given number of templates.
+     *
+     * @param scheduler The scheduler
+     * @param from      The first position
+     * @param count     The number of picks
+     * @return the simple names of the picked templates
+     */
+    private static List<String> pick(BanditScheduler scheduler, long from, int count) {
+        List<String> picks = new ArrayList<>();
+        for (long position = from; position < from + count; position++)
+            picks.add(scheduler.next(TEMPLATES, position).getSimpleName());
+        return picks;
+    }
+
+    /**
+     * Creates a scheduler that has already spent some time on each
+     * template.
+     *
+     * @return the scheduler
+     */
+    private static BanditScheduler played() {
+        BanditScheduler scheduler = new BanditScheduler(42);
+        pick(scheduler, 0, 20);
+        scheduler.record("SimpleClass", 5_000_000_000L, 0);
+        scheduler.record("LotsOfMath", 2_500_000_000L, 3);
+        return scheduler;
+    }
+
+    @Test
+    public void restoresStatistics() {
+        BanditScheduler original = played();
+        Properties state = new Properties();
+        original.save(state);
+
+        BanditScheduler resumed = new BanditScheduler(7);
+        resumed.restore(state);
+
+        Properties restored = new Properties();
+        resumed.save(restored);
+        assertEquals(state, restored);
+    }
+
+    @Test
+    public void resumesDeterministically() {
+        Properties state = new Properties();
+        played().save(state);
+
+        BanditScheduler a = new BanditScheduler(1);
+        BanditScheduler b = new BanditScheduler(2);
+        a.restore(state);
+        b.restore(state);
+
+        assertEquals(pick(a, 20, 50), pick(b, 20, 50));
+    }
+
+    @Test
+    public void doesNotRepeatPreviousSamples() {
+        BanditScheduler original = new BanditScheduler(42);
+        Properties state = new Properties();
+        original.save(state);
+        List<String> first = pick(original, 0, 64);
+
+        // a restored scheduler without picks starts with the same samples
+        BanditScheduler fresh = new BanditScheduler(3);
+        fresh.restore(state);
+        assertEquals(first, pick(fresh, 0, 64));
+
+        // after picks, the samples are reseeded with the number of picks
+        Properties later = new Properties();
+        original.save(later);
+        BanditScheduler resumed = new BanditScheduler(3);
+        resumed.restore(later);
+        assertNotEquals(pick(new BanditScheduler(42), 0, 64), pick(resumed, 64, 64));
+    }
+
+    @Test
+    public void prefersProductiveTemplatesAfterRestore() {
+        BanditScheduler original = new BanditScheduler(42);
+        original.record("SimpleClass", 100_000_000_000L, 0);
+        original.record("LotsOfMath", 100_000_000_000L, 50);
+        Properties state = new Properties();
+        original.save(state);
+
+        BanditScheduler resumed = new BanditScheduler(9);
+        resumed.restore(state);
+
+        long productive = pick(resumed, 0, 100).stream().filter("LotsOfMath"::equals).count();
+        assertTrue(productive > 90);
+    }
+
+    @Test
+    public void ignoresMissingState() {
+        BanditScheduler scheduler = new BanditScheduler(42);
+        scheduler.restore(new Properties());
+
+        assertEquals(pick(new BanditScheduler(42), 0, 32), pick(scheduler, 0, 32));
+    }
+}
@@ -0,0 +1,141 @@
+package at.jku.ssw.java.bytecode.generator.tests.isolation;
+
+import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
+import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionTimeoutException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the encoding and decoding of the messages of the {@link Protocol}.
+ */
+public class ProtocolTest {
+
+    /**
+     * Encodes and decodes the given result.
+     *
+     * @param result The execution result
+     * @return the decoded execution result
+     * @throws IOException if the result cannot be encoded or decoded
+     */
+    private static ExecutionResult roundTrip(ExecutionResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Protocol.writeResult(out, result);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        ExecutionResult decoded = Protocol.readResult(in);
+        assertEquals(-1, in.read());
+        return decoded;
+    }
+
+    /**
+     * @param bytes The encoded message
+     * @return a stream that reads the message
+     */
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void transfersStrings() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Protocol.writeString(out, "SimpleClass0");
+            Protocol.writeString(out, null);
+            Protocol.writeString(out, "");
+            Protocol.writeString(out, "\u00e4\u20ac\ud83d\ude00");
+        }
+
+        DataInputStream in = input(bytes.toByteArray());
+        assertEquals("SimpleClass0", Protocol.readString(in));
+        assertNull(Protocol.readString(in));
+        assertEquals("", Protocol.readString(in));
+        assertEquals("\u00e4\u20ac\ud83d\ude00", Protocol.readString(in));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void transfersBytes() throws IOException {
+        byte[] classFile = {(byte) 0xca, (byte) 0xfe, (byte) 0xba, (byte) 0xbe, 0, 0, 0, 55};
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Protocol.writeBytes(out, classFile);
+            Protocol.writeBytes(out, new byte[0]);
+        }
+
+        DataInputStream in = input(bytes.toByteArray());
+        assertArrayEquals(classFile, Protocol.readBytes(in));
+        assertArrayEquals(new byte[0], Protocol.readBytes(in));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNegativeLengths() throws IOException {
+        Protocol.readBytes(input(new byte[]{(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xfe}));
+    }
+
+    @Test(expected = EOFException.class)
+    public void rejectsTruncatedMessages() throws IOException {
+        Protocol.readBytes(input(new byte[]{0, 0, 0, 4, 1, 2}));
+    }
+
+    @Test
+    public void transfersResults() throws IOException {
+        byte[] output = "1\n2\n3\n".getBytes(StandardCharsets.UTF_8);
+        ExecutionResult result = new ExecutionResult(null, output, null, 0, null, 123_456_789L);
+
+        ExecutionResult decoded = roundTrip(result);
+
+        assertArrayEquals(output, decoded.rawOutput());
+        assertArrayEquals(result.digest(), decoded.digest());
+        assertEquals(3, decoded.lines());
+        assertNull(decoded.exception());
+        assertEquals(123_456_789L, decoded.duration());
+    }
+
+    @Test
+    public void transfersExceptions() throws IOException {
+        ExecutionResult decoded = roundTrip(new ExecutionResult(null, "partial", new ArithmeticException("/ by zero")));
+
+        assertEquals("partial", decoded.output());
+        assertEquals(ArithmeticException.class, decoded.exception().getClass());
+        assertEquals("/ by zero", decoded.exception().getMessage());
+    }
+
+    @Test
+    public void transfersTimeouts() throws IOException {
+        ExecutionResult decoded = roundTrip(new ExecutionResult(null, "", new ExecutionTimeoutException("exceeded 1000 ms")));
+
+        assertTrue(decoded.timedOut());
+        assertEquals("exceeded 1000 ms", decoded.exception().getMessage());
+    }
+
+    @Test
+    public void describesUninstantiableExceptions() throws IOException {
+        // errors are recreated as well, but types without a message
+        // constructor can only be described
+        ExecutionResult overflow = roundTrip(new ExecutionResult(null, "", new StackOverflowError()));
+        assertEquals(StackOverflowError.class, overflow.exception().getClass());
+        assertNull(overflow.exception().getMessage());
+
+        ExecutionResult unknown = roundTrip(new ExecutionResult(null, "", new Uninstantiable()));
+        assertEquals(RuntimeException.class, unknown.exception().getClass());
+        assertEquals(Uninstantiable.class.getName() + ": null", unknown.exception().getMessage());
+    }
+
+    /**
+     * An exception without a message constructor.
+     */
+    private static final class Uninstantiable extends RuntimeException {
+    }
+}
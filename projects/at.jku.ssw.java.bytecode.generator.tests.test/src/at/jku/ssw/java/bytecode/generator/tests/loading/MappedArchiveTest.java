@@ -0,0 +1,123 @@
+package at.jku.ssw.java.bytecode.generator.tests.loading;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that {@link MappedArchive} reads the class files of an archive
+ * from its central directory.
+ */
+public class MappedArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * @param size The number of bytes
+     * @return compressible contents of the given size
+     */
+    private static byte[] contents(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++)
+            bytes[i] = (byte) (i % 7);
+        return bytes;
+    }
+
+    /**
+     * Adds an entry to the given archive.
+     *
+     * @param zip      The archive
+     * @param name     The name of the entry
+     * @param contents The contents of the entry
+     * @param stored   {@code true} to store the entry without compression
+     * @throws IOException if the entry cannot be written
+     */
+    private static void add(ZipOutputStream zip, String name, byte[] contents, boolean stored) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (stored) {
+            CRC32 crc = new CRC32();
+            crc.update(contents);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(contents.length);
+            entry.setCrc(crc.getValue());
+        }
+        // an extra field shifts the data behind the headers
+        entry.setExtra(new byte[]{(byte) 0xFE, (byte) 0xCA, 2, 0, 1, 2});
+        zip.putNextEntry(entry);
+        zip.write(contents);
+        zip.closeEntry();
+    }
+
+    @Test
+    public void readsStoredAndDeflatedClasses() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("corpus.jar");
+        byte[] a = contents(1000);
+        byte[] b = contents(5000);
+
+        try (OutputStream out = Files.newOutputStream(file);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            add(zip, "A.class", a, true);
+            add(zip, "p/q/B.class", b, false);
+            add(zip, "p/q/C.class", new byte[0], false);
+            zip.setComment("a comment that precedes the end record");
+        }
+
+        MappedArchive archive = new MappedArchive(file);
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("A", "p.q.B", "p.q.C")), archive.classNames());
+        assertArrayEquals(a, archive.read("A"));
+        assertArrayEquals(b, archive.read("p.q.B"));
+        assertArrayEquals(new byte[0], archive.read("p.q.C"));
+    }
+
+    @Test
+    public void skipsOtherEntries() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("corpus.zip");
+
+        try (OutputStream out = Files.newOutputStream(file);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            add(zip, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8), false);
+            add(zip, "META-INF/versions/11/A.class", contents(10), false);
+            add(zip, "module-info.class", contents(10), false);
+            add(zip, "p/", new byte[0], true);
+            add(zip, "p/readme.txt", contents(10), false);
+            add(zip, "p/A.class", contents(10), false);
+        }
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("p.A")), new MappedArchive(file).classNames());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnknownClasses() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("corpus.jar");
+
+        try (OutputStream out = Files.newOutputStream(file);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            add(zip, "A.class", contents(10), false);
+        }
+
+        new MappedArchive(file).read("B");
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("A.class");
+        Files.write(file, contents(100));
+
+        new MappedArchive(file);
+    }
+}
@@ -0,0 +1,85 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+import at.jku.ssw.java.bytecode.generator.tests.results.CompilationSample;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the power law fit of {@link ScalingCurves}.
+ */
+public class ScalingCurvesTest {
+
+    /**
+     * The tolerance of fitted exponents.
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Records samples whose compile time grows with the given exponent
+     * and whose installed code grows linearly with the bytecode size.
+     *
+     * @param curves   The curves that record the samples
+     * @param template The template
+     * @param exponent The exponent of the compile time
+     */
+    private static void recordPowerLaw(ScalingCurves curves, String template, double exponent) {
+        for (int iterations = 1; iterations <= 5; iterations++) {
+            long size = 100L * iterations;
+            curves.record(template, iterations, new CompilationSample(
+                    size,
+                    3 * size,
+                    (long) (7 * Math.pow(size, exponent))
+            ));
+        }
+    }
+
+    @Test
+    public void fitsExponentsOfPowerLaws() {
+        ScalingCurves curves = new ScalingCurves(1.5);
+        recordPowerLaw(curves, "Quadratic", 2);
+
+        assertEquals(2, curves.compileTimeExponent("Quadratic"), 1e-6);
+        assertEquals(1, curves.codeSizeExponent("Quadratic"), DELTA);
+    }
+
+    @Test
+    public void flagsTemplatesAboveTheThreshold() {
+        ScalingCurves curves = new ScalingCurves(1.5);
+        recordPowerLaw(curves, "Quadratic", 2);
+        recordPowerLaw(curves, "Linear", 1);
+
+        assertTrue(curves.isSuperlinear("Quadratic"));
+        assertFalse(curves.isSuperlinear("Linear"));
+        assertTrue(curves.report().contains("Quadratic: compile time ~ size^2.00, code size ~ size^1.00 SUPERLINEAR"));
+    }
+
+    @Test
+    public void requiresTwoIterationCounts() {
+        ScalingCurves curves = new ScalingCurves(1.5);
+        curves.record("Single", 1, new CompilationSample(100, 300, 1000));
+        curves.record("Single", 1, new CompilationSample(200, 600, 4000));
+
+        assertTrue(Double.isNaN(curves.compileTimeExponent("Single")));
+        assertTrue(Double.isNaN(curves.compileTimeExponent("Unknown")));
+        assertFalse(curves.isSuperlinear("Single"));
+    }
+
+    @Test
+    public void ignoresEmptySamples() {
+        ScalingCurves curves = new ScalingCurves(1.5);
+        recordPowerLaw(curves, "Linear", 1);
+        curves.record("Linear", 6, new CompilationSample(0, 0, 0));
+        curves.record("Linear", 7, new CompilationSample(700, 0, 0));
+
+        assertEquals(1, curves.compileTimeExponent("Linear"), 1e-6);
+        assertEquals(1, curves.codeSizeExponent("Linear"), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveThresholds() {
+        new ScalingCurves(0);
+    }
+}
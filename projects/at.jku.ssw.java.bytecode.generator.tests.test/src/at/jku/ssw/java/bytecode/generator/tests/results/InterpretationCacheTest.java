@@ -0,0 +1,118 @@
+package at.jku.ssw.java.bytecode.generator.tests.results;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that {@link InterpretationCache} keys its entries by the contents
+ * of the class file.
+ */
+public class InterpretationCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The directory of the cache.
+     */
+    private Path directory;
+
+    @Before
+    public void enable() throws IOException {
+        directory = folder.newFolder("cache").toPath();
+        InterpretationCache.enable(directory);
+    }
+
+    /**
+     * @param output The output of the execution
+     * @return a result that only consists of the given output
+     */
+    private static ExecutionResult result(String output) {
+        return new ExecutionResult(null, output.getBytes(StandardCharsets.UTF_8), null, 0, null, 42);
+    }
+
+    /**
+     * @return the number of files in the cache directory
+     * @throws IOException if the directory cannot be listed
+     */
+    private long entries() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void findsStoredResultByClassFile() {
+        byte[] classFile = {1, 2, 3};
+        InterpretationCache.store(classFile, result("a\nb\n"));
+
+        ExecutionResult cached = InterpretationCache.lookup(classFile.clone());
+
+        assertNotNull(cached);
+        assertEquals("a\nb\n", cached.output());
+        assertArrayEquals(result("a\nb\n").digest(), cached.digest());
+        assertEquals(2, cached.lines());
+        assertEquals(42, cached.duration());
+        assertNull(cached.exception());
+    }
+
+    @Test
+    public void distinguishesClassFiles() {
+        InterpretationCache.store(new byte[]{1, 2, 3}, result("first"));
+        InterpretationCache.store(new byte[]{1, 2, 4}, result("second"));
+
+        assertEquals("first", InterpretationCache.lookup(new byte[]{1, 2, 3}).output());
+        assertEquals("second", InterpretationCache.lookup(new byte[]{1, 2, 4}).output());
+        assertNull(InterpretationCache.lookup(new byte[]{1, 2}));
+    }
+
+    @Test
+    public void restoresExceptions() {
+        byte[] classFile = {5};
+        InterpretationCache.store(
+                classFile,
+                new ExecutionResult(null, new byte[0], null, 0, new ArithmeticException("/ by zero"), 1)
+        );
+
+        Throwable exception = InterpretationCache.lookup(classFile).exception();
+
+        assertTrue(exception instanceof ArithmeticException);
+        assertEquals("/ by zero", exception.getMessage());
+    }
+
+    @Test
+    public void skipsReturnValuesAndTimeouts() throws IOException {
+        InterpretationCache.store(new byte[]{6}, new ExecutionResult(1, new byte[0], null, 0, null, 1));
+        InterpretationCache.store(
+                new byte[]{7},
+                new ExecutionResult(null, new byte[0], null, 0, new ExecutionTimeoutException("budget"), 1)
+        );
+
+        assertNull(InterpretationCache.lookup(new byte[]{6}));
+        assertNull(InterpretationCache.lookup(new byte[]{7}));
+        assertEquals(0, entries());
+    }
+
+    @Test
+    public void ignoresIncompleteEntries() throws IOException {
+        byte[] classFile = {8};
+        InterpretationCache.store(classFile, result("output"));
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path output : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".out"))::iterator)
+                Files.delete(output);
+        }
+
+        assertNull(InterpretationCache.lookup(classFile));
+    }
+}
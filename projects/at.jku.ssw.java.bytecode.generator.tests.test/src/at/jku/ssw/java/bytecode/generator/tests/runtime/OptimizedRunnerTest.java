@@ -0,0 +1,98 @@
+package at.jku.ssw.java.bytecode.generator.tests.runtime;
+
+import at.jku.ssw.java.bytecode.generator.tests.loading.DirectoryClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.results.CompilationResult;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.meta.ProfilingInfo;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.runtime.JVMCI;
+import org.graalvm.compiler.hotspot.HotSpotGraalCompiler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.ToolProvider;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests that the optimized compilation of {@link OptimizedRunner} uses the
+ * profile of the warmup.
+ */
+public class OptimizedRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The optimizer.
+     */
+    private OptimizedRunner optimizer;
+
+    @Before
+    public void setUp() throws Exception {
+        HotSpotJVMCIRuntime runtime = HotSpotJVMCIRuntime.runtime();
+        assumeTrue(runtime.getCompiler() instanceof HotSpotGraalCompiler);
+
+        Path dir = folder.getRoot().toPath();
+        Path source = dir.resolve("Profiled.java");
+        Files.write(source, Arrays.asList(
+                "public class Profiled {",
+                "  static int runs;",
+                "  static final int[] counts = new int[2];",
+                "  public static void main(String[] args) {",
+                "    runs++;",
+                "    for (int i = 0; i < 100_000; i++)",
+                "      counts[i % 3 == 0 ? 0 : 1]++;",
+                "    System.out.println(runs + \" \" + counts[0]);",
+                "  }",
+                "}"
+        ), StandardCharsets.UTF_8);
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", dir.toString(), source.toString()));
+
+        optimizer = new OptimizedRunner(
+                new DirectoryClassSource(dir),
+                runtime,
+                (HotSpotGraalCompiler) runtime.getCompiler(),
+                20
+        );
+    }
+
+    @Test
+    public void compilesTheWarmedUpClass() throws Exception {
+        Class<?> clazz = optimizer.reloadClass("Profiled");
+
+        CompilationResult optimized = optimizer.optimizeAndCompile(clazz);
+        try {
+            assertSame(clazz, optimized.clazz());
+
+            ResolvedJavaMethod main = JVMCI.getRuntime().getHostJVMCIBackend().getMetaAccess()
+                    .lookupJavaMethod(clazz.getMethod("main", String[].class));
+            ProfilingInfo profile = main.getProfilingInfo();
+
+            boolean profiled = false;
+            for (int bci = 0; bci < main.getCodeSize(); bci++)
+                profiled |= profile.getExecutionCount(bci) > 0 || profile.getBranchTakenProbability(bci) >= 0;
+
+            assertTrue(profiled);
+        } finally {
+            CompiledRunner.invalidate(optimized);
+        }
+    }
+
+    @Test
+    public void resetsTheStaticFieldsOfTheWarmup() throws Exception {
+        Class<?> clazz = optimizer.reloadClass("Profiled");
+
+        CompiledRunner.invalidate(optimizer.optimizeAndCompile(clazz));
+
+        assertEquals(0, clazz.getDeclaredField("runs").getInt(null));
+        assertArrayEquals(new int[2], (int[]) clazz.getDeclaredField("counts").get(null));
+    }
+}
@@ -0,0 +1,139 @@
+package at.jku.ssw.java.bytecode.generator.tests.runtime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the file format and the comparison of {@link RecordedProfile}s.
+ */
+public class RecordedProfileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The profile file.
+     */
+    private Path file;
+
+    /**
+     * The digest of the profiled class file.
+     */
+    private byte[] digest;
+
+    @Before
+    public void setUp() {
+        file = folder.getRoot().toPath().resolve("SimpleClass0" + RecordedProfile.EXTENSION);
+        digest = RecordedProfile.digest(new byte[]{(byte) 0xca, (byte) 0xfe, (byte) 0xba, (byte) 0xbe});
+    }
+
+    /**
+     * Creates a profile with a loop, a branch and a virtual call in
+     * {@code main}.
+     *
+     * @param count  The execution count of the loop header
+     * @param branch The probability that the branch is taken
+     * @param string The probability that the receiver is a string
+     * @return the profile
+     */
+    private RecordedProfile profile(int count, double branch, double string) {
+        Map<String, Double> types = new LinkedHashMap<>();
+        types.put("Ljava/lang/String;", string);
+        types.put("Ljava/lang/Integer;", 1 - string);
+
+        Map<Integer, RecordedProfile.Entry> entries = new LinkedHashMap<>();
+        entries.put(4, new RecordedProfile.Entry(count, -1, Collections.emptyMap(), 0));
+        entries.put(12, new RecordedProfile.Entry(count, branch, Collections.emptyMap(), 0));
+        entries.put(20, new RecordedProfile.Entry(-1, -1, types, 0));
+
+        Map<String, Map<Integer, RecordedProfile.Entry>> methods = new LinkedHashMap<>();
+        methods.put("SimpleClass0.main(String[])", entries);
+        return new RecordedProfile(digest, 200, methods);
+    }
+
+    @Test
+    public void readsWrittenProfiles() throws IOException {
+        RecordedProfile profile = profile(10_000, 0.25, 0.5);
+        profile.write(file);
+
+        RecordedProfile read = RecordedProfile.read(file, digest);
+        assertNotNull(read);
+        assertEquals(200, read.runs());
+        assertNull(profile.compare(read));
+        assertNull(read.compare(profile));
+
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void replacesExistingProfiles() throws IOException {
+        profile(10_000, 0.25, 0.5).write(file);
+        profile(20_000, 0.25, 0.5).write(file);
+
+        assertNull(profile(20_000, 0.25, 0.5).compare(RecordedProfile.read(file, digest)));
+    }
+
+    @Test
+    public void toleratesSmallDifferences() {
+        assertNull(profile(10_000, 0.25, 0.5).compare(profile(10_050, 0.255, 0.505)));
+    }
+
+    @Test
+    public void describesDifferences() {
+        RecordedProfile recorded = profile(10_000, 0.25, 0.5);
+
+        assertEquals("SimpleClass0.main(String[])@4 - execution count 10000 vs. 12000",
+                recorded.compare(profile(12_000, 0.25, 0.5)));
+        assertEquals("SimpleClass0.main(String[])@12 - branch probability 0.25 vs. 0.75",
+                recorded.compare(profile(10_000, 0.75, 0.5)));
+        assertTrue(recorded.compare(profile(10_000, 0.25, 0.9)).startsWith("SimpleClass0.main(String[])@20 - type probabilities"));
+
+        RecordedProfile other = new RecordedProfile(digest, 200, Collections.emptyMap());
+        assertTrue(recorded.compare(other).startsWith("Profiled methods differ"));
+    }
+
+    @Test
+    public void ignoresMissingProfiles() throws IOException {
+        assertNull(RecordedProfile.read(file, digest));
+    }
+
+    @Test
+    public void ignoresProfilesOfOtherClassFiles() throws IOException {
+        profile(10_000, 0.25, 0.5).write(file);
+
+        assertNull(RecordedProfile.read(file, RecordedProfile.digest(new byte[]{0})));
+    }
+
+    @Test
+    public void ignoresOtherFormatVersions() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x4A425046);
+            out.writeInt(1);
+            out.writeInt(200);
+        }
+
+        assertNull(RecordedProfile.read(file, digest));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        Files.write(file, new byte[]{'P', 'K', 3, 4, 0, 0, 0, 0});
+
+        RecordedProfile.read(file, digest);
+    }
+}
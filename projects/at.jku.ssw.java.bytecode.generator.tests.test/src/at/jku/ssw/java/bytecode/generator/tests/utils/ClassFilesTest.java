@@ -0,0 +1,89 @@
+package at.jku.ssw.java.bytecode.generator.tests.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the inspection and name-independent digests of {@link ClassFiles}.
+ */
+public class ClassFilesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Compiles a class with the given name and body.
+     *
+     * @param pkg  The package of the class (or {@code null})
+     * @param name The simple name of the class
+     * @param body The members of the class
+     * @return the contents of the class file
+     * @throws IOException if the class cannot be compiled
+     */
+    private byte[] compile(String pkg, String name, String body) throws IOException {
+        Path dir = folder.newFolder().toPath();
+        Path source = dir.resolve(name + ".java");
+        Files.write(source, Arrays.asList(
+                pkg == null ? "" : "package " + pkg + ";",
+                "public class " + name + " {",
+                body,
+                "}"
+        ), StandardCharsets.UTF_8);
+
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, javac.run(null, null, null, "-d", dir.toString(), source.toString()));
+
+        Path classFile = pkg == null ? dir : dir.resolve(pkg.replace('.', '/'));
+        return Files.readAllBytes(classFile.resolve(name + ".class"));
+    }
+
+    /**
+     * A program that refers to its own class.
+     */
+    private static final String PROGRAM = String.join("\n",
+            "  private static int x = 3;",
+            "  private int y;",
+            "  public static void main(String[] args) {",
+            "    System.out.println(x + new %s().y);",
+            "  }"
+    );
+
+    @Test
+    public void readsClassNames() throws IOException {
+        assertEquals("A", ClassFiles.nameOf(compile(null, "A", "")));
+        assertEquals("p.q.B", ClassFiles.nameOf(compile("p.q", "B", "")));
+    }
+
+    @Test
+    public void ignoresClassNames() throws IOException {
+        byte[] a = compile(null, "SimpleClass0", String.format(PROGRAM, "SimpleClass0"));
+        byte[] b = compile(null, "SimpleClass17", String.format(PROGRAM, "SimpleClass17"));
+
+        assertFalse(Arrays.equals(a, b));
+        assertArrayEquals(ClassFiles.normalizedDigest(a), ClassFiles.normalizedDigest(b));
+    }
+
+    @Test
+    public void distinguishesPrograms() throws IOException {
+        byte[] a = compile(null, "A", String.format(PROGRAM, "A"));
+        byte[] b = compile(null, "B", String.format(PROGRAM, "B").replace("x = 3", "x = 4"));
+
+        assertFalse(Arrays.equals(ClassFiles.normalizedDigest(a), ClassFiles.normalizedDigest(b)));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsInvalidClassFiles() throws IOException {
+        ClassFiles.normalizedDigest(new byte[]{1, 2, 3, 4});
+    }
+}
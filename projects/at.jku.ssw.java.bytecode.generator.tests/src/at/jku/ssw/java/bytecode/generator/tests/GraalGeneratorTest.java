@@ -1,23 +1,64 @@
 package at.jku.ssw.java.bytecode.generator.tests;
 
+import at.jku.ssw.java.bytecode.generator.tests.campaign.Checkpoint;
+import at.jku.ssw.java.bytecode.generator.tests.campaign.Pipeline;
+import at.jku.ssw.java.bytecode.generator.tests.campaign.Report;
+import at.jku.ssw.java.bytecode.generator.tests.campaign.Summary;
 import at.jku.ssw.java.bytecode.generator.tests.comparison.Comparing;
 import at.jku.ssw.java.bytecode.generator.tests.generation.ClassFileGenerator;
+import at.jku.ssw.java.bytecode.generator.tests.generation.SeenSet;
+import at.jku.ssw.java.bytecode.generator.tests.generation.classes.Generative;
+import at.jku.ssw.java.bytecode.generator.tests.generation.scheduling.BanditScheduler;
+import at.jku.ssw.java.bytecode.generator.tests.generation.scheduling.RoundRobinScheduler;
+import at.jku.ssw.java.bytecode.generator.tests.generation.scheduling.TemplateScheduler;
+import at.jku.ssw.java.bytecode.generator.tests.isolation.IsolatedResult;
+import at.jku.ssw.java.bytecode.generator.tests.isolation.IsolatedWorker;
+import at.jku.ssw.java.bytecode.generator.tests.isolation.WorkerCrashException;
+import at.jku.ssw.java.bytecode.generator.tests.isolation.WorkerPool;
+import at.jku.ssw.java.bytecode.generator.tests.loading.ClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.loading.CorpusClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.loading.DirectoryClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.loading.InMemoryClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.loading.LoaderTracker;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Benchmark;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.CodeCacheUsage;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.CompileTimeOutliers;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.CpuTime;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.ResourceUsage;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.ScalingCurves;
+import at.jku.ssw.java.bytecode.generator.tests.results.CompilationSample;
 import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
+import at.jku.ssw.java.bytecode.generator.tests.results.InterpretationCache;
+import at.jku.ssw.java.bytecode.generator.tests.runtime.AdaptiveWarmup;
 import at.jku.ssw.java.bytecode.generator.tests.runtime.CompiledRunner;
 import at.jku.ssw.java.bytecode.generator.tests.runtime.InterpretationRunner;
 import at.jku.ssw.java.bytecode.generator.tests.runtime.OptimizedRunner;
+import at.jku.ssw.java.bytecode.generator.tests.runtime.RecordedProfile;
+import at.jku.ssw.java.bytecode.generator.tests.runtime.ScalingRunner;
 import at.jku.ssw.java.bytecode.generator.tests.utils.StaticFieldGuard;
+import at.jku.ssw.java.bytecode.generator.tests.utils.Watchdog;
 import jdk.vm.ci.hotspot.HotSpotCodeCacheProvider;
 import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
 import org.apache.commons.cli.*;
 import org.graalvm.compiler.hotspot.HotSpotGraalCompiler;
 import org.graalvm.compiler.hotspot.HotSpotGraalRuntimeProvider;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,6 +82,61 @@ public class GraalGeneratorTest implements Comparing {
      */
     private static final int OPTIMIZATION_THRESHOLD = 10;
 
+    /**
+     * The number of workers that test generated classes concurrently.
+     */
+    private static final int WORKERS = 1;
+
+    /**
+     * The number of threads that compile the methods of a class
+     * concurrently.
+     */
+    private static final int COMPILER_THREADS = 1;
+
+    /**
+     * The directory where compile time outliers are stored.
+     */
+    private static final String OUTLIER_DIR = "./outliers";
+
+    /**
+     * The directory where classes with slow optimized code are stored.
+     */
+    private static final String SLOWDOWN_DIR = "./slowdowns";
+
+    /**
+     * The factor by which optimized code must be slower than compiled or
+     * interpreted code to be reported in benchmark mode.
+     */
+    private static final double SLOWDOWN_FACTOR = 1.5;
+
+    /**
+     * The file that the compile time scaling curves are written to.
+     */
+    private static final String SCALING_REPORT = "./scaling.txt";
+
+    /**
+     * The exponent above which the compile time of a template is reported
+     * as growing superlinearly.
+     */
+    private static final double SCALING_THRESHOLD = 1.2;
+
+    /**
+     * The interval in seconds in which the campaign checkpoint is written.
+     */
+    private static final long CHECKPOINT_INTERVAL = 60;
+
+    /**
+     * The default directory where classes that crashed an isolated worker
+     * are stored.
+     */
+    private static final String CRASH_DIR = "./crashes";
+
+    /**
+     * The exit code that signals that the JVM exceeded its resource limits
+     * and should be restarted to resume the campaign.
+     */
+    public static final int RECYCLE_EXIT_CODE = 75;
+
     // endregion
     //-------------------------------------------------------------------------
     // region Logging
@@ -55,9 +151,9 @@ public class GraalGeneratorTest implements Comparing {
     // region Properties
 
     /**
-     * The current working directory.
+     * The source from which the tested classes are loaded.
      */
-    private final Path workingDirectory;
+    private final ClassSource classes;
 
     /**
      * The compiler runtime reference that should be used for compilation.
@@ -75,6 +171,17 @@ public class GraalGeneratorTest implements Comparing {
      */
     private final int optimizationThreshold;
 
+    /**
+     * The executor that compiles the individual methods of a class.
+     */
+    private final Executor compilations;
+
+    /**
+     * The worker processes that run the compiled and optimized steps
+     * (or {@code null} if they run in this process).
+     */
+    private final WorkerPool isolation;
+
     // endregion
     //-------------------------------------------------------------------------
     // region Initialization
@@ -82,20 +189,28 @@ public class GraalGeneratorTest implements Comparing {
     /**
      * Creates a new Graal tester.
      *
-     * @param outDir                The directory where the generated classes
-     *                              should be stored in
+     * @param classes               The source from which the tested classes
+     *                              are loaded
      * @param runtime               The runtime reference
      * @param compiler              The Graal compiler reference
      * @param optimizationThreshold The test runs to execute to get optimization information
+     * @param compilations          The executor that compiles the individual
+     *                              methods of a class
+     * @param isolation             The worker processes that run the compiled
+     *                              and optimized steps (or {@code null})
      */
-    private GraalGeneratorTest(String outDir,
+    private GraalGeneratorTest(ClassSource classes,
                                HotSpotJVMCIRuntime runtime,
                                HotSpotGraalCompiler compiler,
-                               int optimizationThreshold) {
-        this.workingDirectory = Paths.get(outDir);
+                               int optimizationThreshold,
+                               Executor compilations,
+                               WorkerPool isolation) {
+        this.classes = classes;
         this.runtime = runtime;
         this.compiler = compiler;
         this.optimizationThreshold = optimizationThreshold;
+        this.compilations = compilations;
+        this.isolation = isolation;
     }
 
     // endregion
@@ -108,48 +223,144 @@ public class GraalGeneratorTest implements Comparing {
      * results.
      *
      * @param className The name of the class that is run
+     * @return {@code true} if all results match the interpreted result
      * @throws Exception if the execution fails or the class name is invalid
      */
-    private void testGraalCompilerForClass(String className) throws Exception {
+    private boolean testGraalCompilerForClass(String className) throws Exception {
         assert className != null;
 
         // create an interpreter
         // (no field guard since this is the initial step)
         InterpretationRunner interpreter = new InterpretationRunner(
-                workingDirectory
+                classes
         );
 
         // interpretation
         ExecutionResult interpreted = interpreter.call(className);
 
+        if (isolation != null)
+            return testIsolated(className, interpreter, interpreted);
+
         // get the field guard
         StaticFieldGuard guard = interpreter.guard();
 
         CompiledRunner compiler = new CompiledRunner(
-                workingDirectory,
+                classes,
                 guard,
                 runtime,
-                this.compiler
+                this.compiler,
+                compilations
         );
 
 
         // compilation
         ExecutionResult compiled = compiler.call(className);
 
-        compareResults(interpreted, compiled);
+        boolean match = compareResults(interpreted, compiled);
 
         OptimizedRunner optimizer = new OptimizedRunner(
-                workingDirectory,
+                classes,
                 guard,
                 runtime,
                 this.compiler,
-                optimizationThreshold
+                optimizationThreshold,
+                compilations
         );
 
         // optimization
         ExecutionResult optimized = optimizer.call(className);
 
-        compareResults(interpreted, optimized);
+        match &= compareResults(interpreted, optimized);
+
+        // compare the execution speed (if enabled)
+        if (Benchmark.isEnabled())
+            Benchmark.compare(
+                    className,
+                    classes.bytes(className),
+                    interpreter.executionTime(),
+                    compiler.executionTime(),
+                    optimizer.executionTime()
+            );
+
+        if (!match && !classes.isPersistent()) {
+            // keep the mismatching class and its outputs for later analysis
+            classes.persist(className);
+            interpreter.saveOutput();
+            compiler.saveOutput();
+            optimizer.saveOutput();
+        }
+
+        return match;
+    }
+
+    /**
+     * Runs the compiled and optimized steps of the given class in an
+     * isolated worker process and compares the results with the
+     * interpreted result.
+     *
+     * @param className   The name of the class that is run
+     * @param interpreter The interpreter that ran the class
+     * @param interpreted The interpreted result
+     * @return {@code true} if all results match the interpreted result
+     * @throws Exception if the execution fails or the worker crashes
+     */
+    private boolean testIsolated(String className,
+                                 InterpretationRunner interpreter,
+                                 ExecutionResult interpreted) throws Exception {
+
+        byte[] classFile = classes.bytes(className);
+        IsolatedResult isolated = isolation.test(className, classFile);
+        CompileTimeOutliers.merge(className, isolated.outliers());
+
+        boolean match = compareResults(interpreted, isolated.compiled());
+        match &= compareResults(interpreted, isolated.optimized());
+
+        if (Benchmark.isEnabled())
+            Benchmark.compare(
+                    className,
+                    classFile,
+                    interpreter.executionTime(),
+                    isolated.compiledTime(),
+                    isolated.optimizedTime()
+            );
+
+        if (!match && !classes.isPersistent()) {
+            classes.persist(className);
+            interpreter.saveOutput();
+        }
+
+        // the workers never write any files themselves
+        if (!match || classes.isPersistent()) {
+            Files.write(classes.workingDirectory().resolve(className + "_compiled.txt"), isolated.compiled().rawOutput());
+            Files.write(classes.workingDirectory().resolve(className + "_optimized.txt"), isolated.optimized().rawOutput());
+        }
+
+        return match;
+    }
+
+    /**
+     * Only compiles all methods of the class that is identified by the given
+     * name without executing it (to measure the compiler throughput).
+     *
+     * @param className The name of the class that is compiled
+     * @throws Exception if the class name is invalid or the compilation fails
+     */
+    private void compileClass(String className) throws Exception {
+        assert className != null;
+
+        if (isolation != null) {
+            IsolatedResult isolated = isolation.compile(className, classes.bytes(className));
+            CompileTimeOutliers.merge(className, isolated.outliers());
+            return;
+        }
+
+        new CompiledRunner(
+                classes,
+                null,
+                runtime,
+                compiler,
+                compilations
+        ).compileOnly(className);
     }
 
     // endregion
@@ -180,6 +391,11 @@ public class GraalGeneratorTest implements Comparing {
 
         int repetitions;
         int optimizationThreshold;
+        int workers;
+        int compilerThreads;
+        int shard = 0;
+        int shards = 1;
+        int skip;
 
         Options commandLineOptions = getCommandLineOptions();
         CommandLine commandLine = getCommandLine(commandLineOptions, args);
@@ -190,11 +406,21 @@ public class GraalGeneratorTest implements Comparing {
             return;
         }
 
+        Long duration = Optional
+                .ofNullable(commandLine.getParsedOptionValue("duration"))
+                .map(Number.class::cast)
+                .map(Number::longValue)
+                .orElse(null);
+
+        if (duration != null && duration <= 0)
+            throw new IllegalArgumentException("The duration must be greater than 0");
+
+        // a time budget without explicit repetitions is only limited by time
         repetitions = Optional
                 .ofNullable(commandLine.getParsedOptionValue("r"))
                 .map(Number.class::cast)
                 .map(Number::intValue)
-                .orElse(REPETITIONS);
+                .orElse(duration != null ? Integer.MAX_VALUE : REPETITIONS);
 
         if (repetitions <= 0)
             throw new IllegalArgumentException("The number of repetitions must be greater than 0");
@@ -208,9 +434,225 @@ public class GraalGeneratorTest implements Comparing {
         if (optimizationThreshold < 0)
             throw new IllegalArgumentException("The optimization threshold must at least be 0");
 
+        workers = Optional
+                .ofNullable(commandLine.getParsedOptionValue("w"))
+                .map(Number.class::cast)
+                .map(Number::intValue)
+                .orElse(WORKERS);
+
+        if (workers <= 0)
+            throw new IllegalArgumentException("The number of workers must be greater than 0");
+
+        compilerThreads = Optional
+                .ofNullable(commandLine.getParsedOptionValue("c"))
+                .map(Number.class::cast)
+                .map(Number::intValue)
+                .orElse(COMPILER_THREADS);
+
+        if (compilerThreads <= 0)
+            throw new IllegalArgumentException("The number of compiler threads must be greater than 0");
+
+        // a single compiler thread compiles on the calling thread
+        final Executor compilations = compilerThreads == 1
+                ? Runnable::run
+                : Executors.newFixedThreadPool(compilerThreads, r -> {
+                    Thread t = new Thread(r, "compiler");
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        if (commandLine.hasOption("s")) {
+            // the shard is given as "<index>/<count>"
+            String[] parts = commandLine.getOptionValue("s").split("/");
+            if (parts.length != 2)
+                throw new IllegalArgumentException("The shard must be given as <index>/<count>");
+
+            shard = Integer.parseInt(parts[0]);
+            shards = Integer.parseInt(parts[1]);
+        }
+
+        skip = Optional
+                .ofNullable(commandLine.getParsedOptionValue("skip"))
+                .map(Number.class::cast)
+                .map(Number::intValue)
+                .orElse(0);
+
+        boolean inMemory = commandLine.hasOption("m");
+        boolean compileOnly = commandLine.hasOption("compile-only");
+
+        if (commandLine.hasOption("benchmark"))
+            Benchmark.enable(
+                    Paths.get(SLOWDOWN_DIR),
+                    ((Number) commandLine.getParsedOptionValue("benchmark")).intValue(),
+                    Optional
+                            .ofNullable(commandLine.getParsedOptionValue("slowdown-factor"))
+                            .map(Number.class::cast)
+                            .map(Number::doubleValue)
+                            .orElse(SLOWDOWN_FACTOR)
+            );
+
+        if (commandLine.hasOption("adaptive-warmup"))
+            AdaptiveWarmup.enable(((Number) commandLine.getParsedOptionValue("adaptive-warmup")).intValue());
+
+        RecordedProfile.configure(
+                commandLine.hasOption("record-profiles"),
+                commandLine.hasOption("replay-profiles")
+        );
+
+        if (commandLine.hasOption("compile-outliers"))
+            CompileTimeOutliers.enable(
+                    Paths.get(OUTLIER_DIR),
+                    ((Number) commandLine.getParsedOptionValue("compile-outliers")).doubleValue()
+            );
+
+        if (commandLine.hasOption("result-cache"))
+            InterpretationCache.enable(Paths.get(commandLine.getOptionValue("result-cache")));
+
+        if (commandLine.hasOption("stats-interval")) {
+            long statsInterval = ((Number) commandLine.getParsedOptionValue("stats-interval")).longValue();
+            if (statsInterval <= 0)
+                throw new IllegalArgumentException("The statistics interval must be greater than 0");
+
+            Metrics.reportEvery(statsInterval);
+        }
+
+        LoaderTracker.configure(
+                Optional
+                        .ofNullable(commandLine.getParsedOptionValue("metaspace-budget"))
+                        .map(Number.class::cast)
+                        .map(Number::longValue)
+                        .map(mb -> mb * 1024 * 1024)
+                        .orElse(LoaderTracker.DEFAULT_METASPACE_BUDGET),
+                Optional
+                        .ofNullable(commandLine.getParsedOptionValue("class-budget"))
+                        .map(Number.class::cast)
+                        .map(Number::intValue)
+                        .orElse(LoaderTracker.DEFAULT_CLASS_BUDGET)
+        );
+
+        if (commandLine.hasOption("time-budget") || commandLine.hasOption("allocation-budget"))
+            Watchdog.enable(
+                    Optional
+                            .ofNullable(commandLine.getParsedOptionValue("time-budget"))
+                            .map(Number.class::cast)
+                            .map(Number::longValue)
+                            .orElse(0L),
+                    Optional
+                            .ofNullable(commandLine.getParsedOptionValue("allocation-budget"))
+                            .map(Number.class::cast)
+                            .map(Number::longValue)
+                            .map(mb -> mb * 1024 * 1024)
+                            .orElse(0L)
+            );
+
+        ResourceUsage.limit(
+                Optional
+                        .ofNullable(commandLine.getParsedOptionValue("recycle-heap"))
+                        .map(Number.class::cast)
+                        .map(Number::longValue)
+                        .map(mb -> mb * 1024 * 1024)
+                        .orElse(0L),
+                Optional
+                        .ofNullable(commandLine.getParsedOptionValue("recycle-metaspace"))
+                        .map(Number.class::cast)
+                        .map(Number::longValue)
+                        .map(mb -> mb * 1024 * 1024)
+                        .orElse(0L),
+                Optional
+                        .ofNullable(commandLine.getParsedOptionValue("recycle-code-cache"))
+                        .map(Number.class::cast)
+                        .map(Number::longValue)
+                        .map(mb -> mb * 1024 * 1024)
+                        .orElse(0L)
+        );
+
+        if (commandLine.hasOption("isolated-worker")) {
+            // serve the compiled and optimized steps of a parent process
+            // (which passes on all of its own arguments)
+            new IsolatedWorker(jvmciRuntime, compiler, optimizationThreshold, compilations)
+                    .serve(((Number) commandLine.getParsedOptionValue("isolated-worker")).intValue());
+            Metrics.logReport();
+            return;
+        }
+
+        Path reportFile = Optional
+                .ofNullable(commandLine.getOptionValue("report"))
+                .map(Paths::get)
+                .orElse(null);
+
+        Path seenSetFile = Optional
+                .ofNullable(commandLine.getOptionValue("seen-set"))
+                .map(Paths::get)
+                .orElse(null);
+
+        Path crashDir = Paths.get(Optional
+                .ofNullable(commandLine.getOptionValue("crash-dir"))
+                .orElse(CRASH_DIR));
+
+        if (reportFile != null)
+            Files.createDirectories(crashDir);
+
+        Path checkpointFile = Optional
+                .ofNullable(commandLine.getOptionValue("checkpoint"))
+                .map(Paths::get)
+                .orElse(null);
+
+        long checkpointInterval = Optional
+                .ofNullable(commandLine.getParsedOptionValue("checkpoint-interval"))
+                .map(Number.class::cast)
+                .map(Number::longValue)
+                .orElse(CHECKPOINT_INTERVAL);
+
+        if (checkpointInterval <= 0)
+            throw new IllegalArgumentException("The checkpoint interval must be greater than 0");
+
+        if (commandLine.hasOption("sweep")) {
+            double[] multipliers = Arrays.stream(commandLine.getOptionValue("sweep").split(","))
+                    .map(String::trim)
+                    .mapToDouble(Double::parseDouble)
+                    .toArray();
+
+            if (multipliers.length < 2 || Arrays.stream(multipliers).anyMatch(m -> m <= 0))
+                throw new IllegalArgumentException("The sweep requires at least two multipliers greater than 0");
+
+            double threshold = Optional
+                    .ofNullable(commandLine.getParsedOptionValue("scaling-threshold"))
+                    .map(Number.class::cast)
+                    .map(Number::doubleValue)
+                    .orElse(SCALING_THRESHOLD);
+
+            sweep(jvmciRuntime, compiler, multipliers, repetitions, threshold);
+            return;
+        }
+
+        int isolatedWorkers = Optional
+                .ofNullable(commandLine.getParsedOptionValue("isolate"))
+                .map(Number.class::cast)
+                .map(Number::intValue)
+                .orElse(0);
+
+        if (commandLine.hasOption("isolate") && isolatedWorkers <= 0)
+            throw new IllegalArgumentException("The number of isolated workers must be greater than 0");
+
+        // the workers receive the same arguments as this process
+        // (and the port that they connect to)
+        List<String> workerArgs = new ArrayList<>(Arrays.asList(args));
+        workerArgs.add("--isolated-worker");
+
+        final WorkerPool isolation = isolatedWorkers == 0
+                ? null
+                : new WorkerPool(
+                isolatedWorkers,
+                crashDir,
+                WorkerPool.command(GraalGeneratorTest.class, workerArgs)
+        );
+
         // the remaining arguments are potential class files
         String[] classFiles = commandLine.getArgs();
 
+        // the reason why this JVM is recycled (if it is)
+        final AtomicReference<String> recycling = new AtomicReference<>();
+
         if (classFiles.length == 0) {
             // if no more arguments are provided,
             // generate, compile and compare the sample classes
@@ -224,46 +666,349 @@ public class GraalGeneratorTest implements Comparing {
                 throw new IllegalArgumentException(outDir + " does not denote a valid directory");
 
 
-            // iterate over all class generation parameters
-            new ClassFileGenerator(outDir, repetitions).forEach(name -> {
-                GraalGeneratorTest cgb = new GraalGeneratorTest(
-                        OUTDIR,
-                        jvmciRuntime,
-                        compiler,
-                        optimizationThreshold
-                );
+            final TemplateScheduler scheduler;
+            switch (Optional.ofNullable(commandLine.getOptionValue("scheduler")).orElse("round-robin")) {
+                case "round-robin":
+                    scheduler = new RoundRobinScheduler();
+                    break;
+                case "bandit":
+                    scheduler = new BanditScheduler();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown scheduler " + commandLine.getOptionValue("scheduler"));
+            }
 
-                try {
-                    cgb.testGraalCompilerForClass(name);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
+            try (Report report = reportFile == null ? null : new Report(reportFile);
+                 SeenSet seen = seenSetFile != null
+                         ? new SeenSet(seenSetFile)
+                         : commandLine.hasOption("dedup") ? new SeenSet() : null;
+                 Checkpoint checkpoint = checkpointFile == null
+                         ? null
+                         : new Checkpoint(checkpointFile, scheduler, skip)) {
+
+                // a resumed campaign skips all generations that were
+                // already completed and only spends the remaining time
+                if (checkpoint != null) {
+                    skip = Math.toIntExact(checkpoint.completed());
+                    checkpoint.saveEvery(checkpointInterval);
                 }
-            });
+
+                final ClassSource classes;
+                final ClassFileGenerator generator;
+
+                if (inMemory) {
+                    // only mismatching classes are written to the output directory
+                    InMemoryClassSource memory = new InMemoryClassSource(outDir);
+                    classes = memory;
+                    generator = new ClassFileGenerator(memory, repetitions, shard, shards, skip);
+                } else {
+                    classes = new DirectoryClassSource(outDir);
+                    generator = new ClassFileGenerator(outDir, repetitions, shard, shards, skip);
+                }
+
+                generator.schedule(scheduler);
+
+                if (duration != null) {
+                    long elapsed = checkpoint == null ? 0 : checkpoint.elapsed();
+                    generator.limit(Math.max(0, TimeUnit.SECONDS.toNanos(duration) - elapsed));
+                }
+
+                // detect duplicate programs within the campaign
+                // (and across campaigns if the seen-set is persistent)
+                if (seen != null)
+                    generator.deduplicate(seen);
+
+                // the scheduler weighs the findings by the CPU time of each
+                // class, which is independent of the concurrent workers;
+                // compilations on other threads and isolated workers are
+                // not visible to the tester thread, therefore their wall-clock
+                // time is used instead
+                final LongSupplier testClock = isolation == null && compilerThreads == 1
+                        ? CpuTime::current
+                        : System::nanoTime;
+
+                // this JVM may only be recycled if the campaign can be
+                // resumed (from the checkpoint or the report)
+                final boolean recyclable = checkpoint != null || report != null;
+
+                if (ResourceUsage.isLimited() && !recyclable)
+                    logger.warning("Resource limits require --checkpoint or --report to recycle this JVM");
+
+                // generate the classes in the background and let the workers
+                // test them as soon as they become available
+                new Pipeline(
+                        generator,
+                        () -> (name, position) -> {
+                            final long index = generator.sequenceNumber(name);
+
+                            // duplicates are recorded but neither compiled
+                            // nor executed
+                            if (generator.isDuplicate(name)) {
+                                if (report != null)
+                                    report.record(name, Report.DUPLICATE, index);
+                                if (checkpoint != null)
+                                    checkpoint.complete(index);
+                                return;
+                            }
+
+                            if (report != null)
+                                start(report, crashDir, classes, name, index);
+
+                            GraalGeneratorTest cgb = new GraalGeneratorTest(
+                                    classes,
+                                    jvmciRuntime,
+                                    compiler,
+                                    optimizationThreshold,
+                                    compilations,
+                                    isolation
+                            );
+
+                            final long start = testClock.getAsLong();
+
+                            boolean passed = true;
+                            boolean crashed = false;
+                            try {
+                                if (compileOnly)
+                                    cgb.compileClass(name);
+                                else
+                                    passed = cgb.testGraalCompilerForClass(name);
+                            } catch (WorkerCrashException e) {
+                                // the class is kept as crash reproducer
+                                passed = false;
+                                crashed = true;
+                            } catch (Exception | LinkageError e) {
+                                // keep the failing class for later analysis
+                                // (in-memory classes are lost otherwise)
+                                if (!classes.isPersistent())
+                                    classes.persist(name);
+                                if (report != null)
+                                    finish(report, crashDir, name, Report.ERROR, index);
+                                generator.tested(name);
+                                throw e;
+                            }
+
+                            classes.release(name);
+                            CodeCacheUsage.release(name);
+
+                            // mismatches, crashes and new compile time
+                            // outliers are the findings that the scheduler
+                            // optimizes for
+                            generator.scheduler().record(
+                                    Metrics.templateOf(name),
+                                    testClock.getAsLong() - start,
+                                    (passed ? 0 : 1) + CompileTimeOutliers.collect(name)
+                            );
+
+                            if (report != null)
+                                finish(
+                                        report,
+                                        crashDir,
+                                        name,
+                                        crashed ? Report.CRASH
+                                                : compileOnly ? Report.COMPILED
+                                                : passed ? Report.PASS : Report.MISMATCH,
+                                        index
+                                );
+
+                            // only finished programs are recognized in later
+                            // campaigns
+                            generator.tested(name);
+
+                            // only completed classes are skipped on resume
+                            if (checkpoint != null)
+                                checkpoint.complete(index);
+
+                            // a bloated JVM finishes the generated classes
+                            // and exits to be replaced by a fresh one
+                            if (recyclable) {
+                                String exceeded = ResourceUsage.exceeded();
+                                if (exceeded != null && recycling.compareAndSet(null, exceeded)) {
+                                    logger.info("Recycling JVM - " + exceeded);
+                                    generator.stop();
+                                }
+                            }
+                        },
+                        workers
+                ).run();
+            }
+
+            logger.info("Template schedule: " + scheduler.describe());
         } else {
-            // otherwise do the same with the given class files
-            Arrays.stream(classFiles)
-                    // strip possible ".class" extensions
-                    .map(f -> f.endsWith(".class")
-                            ? f.substring(0, f.length() - 6)
-                            : f)
-                    .forEach(className -> {
-                        codeCache.resetCompilationStatistics();
-                        GraalGeneratorTest cgb = new GraalGeneratorTest(
-                                ".",
-                                jvmciRuntime,
-                                compiler,
-                                optimizationThreshold
-                        );
-
-                        logger.log(Level.WARNING, className + " - Initialization");
-
-                        try {
-                            cgb.testGraalCompilerForClass(className);
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    });
+            // otherwise replay the given class files, directories,
+            // archives and glob patterns
+            codeCache.resetCompilationStatistics();
+
+            final CorpusClassSource corpus = new CorpusClassSource(Paths.get("."), classFiles);
+            final Summary summary = new Summary();
+
+            final List<String> names = corpus.classNames(shard, shards, skip);
+            final int first = skip;
+
+            try (Report report = reportFile == null ? null : new Report(reportFile)) {
+                new Pipeline(
+                        names,
+                        () -> (name, position) -> {
+                            // the position of the class in the shard's
+                            // replay sequence
+                            final long index = first + position;
+                            if (report != null)
+                                start(report, crashDir, corpus, name, index);
+
+                            GraalGeneratorTest cgb = new GraalGeneratorTest(
+                                    corpus,
+                                    jvmciRuntime,
+                                    compiler,
+                                    optimizationThreshold,
+                                    compilations,
+                                    isolation
+                            );
+
+                            // a broken class must not stop the replay
+                            String status;
+                            try {
+                                boolean passed = true;
+                                if (compileOnly)
+                                    cgb.compileClass(name);
+                                else
+                                    passed = cgb.testGraalCompilerForClass(name);
+
+                                summary.record(name, passed);
+                                status = compileOnly ? Report.COMPILED : passed ? Report.PASS : Report.MISMATCH;
+                            } catch (WorkerCrashException e) {
+                                summary.crash(name);
+                                status = Report.CRASH;
+                            } catch (Exception | LinkageError e) {
+                                summary.error(name, e);
+                                status = Report.ERROR;
+                            }
+
+                            CodeCacheUsage.release(name);
+
+                            if (report != null)
+                                finish(report, crashDir, name, status, index);
+                        },
+                        workers
+                ).run();
+            }
+
+            logger.info("Replay finished - " + summary.describe());
+        }
+
+        if (isolation != null)
+            isolation.close();
+
+        Metrics.logReport();
+
+        // the checkpoint is written, so the caller may resume the campaign
+        if (recycling.get() != null)
+            System.exit(RECYCLE_EXIT_CODE);
+    }
+
+    /**
+     * Records that the test of the given class starts and keeps its class
+     * file in the crash directory until its final status is recorded, so
+     * that the class remains there as reproducer if it kills this JVM.
+     *
+     * @param report    The report
+     * @param crashDir  The crash directory
+     * @param classes   The source of the class
+     * @param className The name of the class
+     * @param index     The position of the class in the (shard's) sequence
+     * @throws IOException if the class file or the report cannot be written
+     */
+    private static void start(Report report,
+                              Path crashDir,
+                              ClassSource classes,
+                              String className,
+                              long index) throws IOException {
+
+        Files.write(crashDir.resolve(className + ".class"), classes.bytes(className));
+        report.record(className, Report.STARTED, index);
+    }
+
+    /**
+     * Records the final status of the given class and removes its class
+     * file from the crash directory unless it crashed an isolated worker.
+     *
+     * @param report    The report
+     * @param crashDir  The crash directory
+     * @param className The name of the class
+     * @param status    The final status
+     * @param index     The position of the class in the (shard's) sequence
+     * @throws IOException if the report cannot be written
+     */
+    private static void finish(Report report,
+                               Path crashDir,
+                               String className,
+                               String status,
+                               long index) throws IOException {
+
+        report.record(className, status, index);
+        if (!status.equals(Report.CRASH))
+            Files.deleteIfExists(crashDir.resolve(className + ".class"));
+    }
+
+    /**
+     * Generates each template with multiples of its default number of
+     * generation iterations and measures the compile time and code size
+     * of every class. The fitted growth curves are logged and written to
+     * the scaling report.
+     * The sizes are visited in turns (one class per size and template) so
+     * that warm-up effects of the compiler itself do not distort the curve.
+     *
+     * @param runtime     The runtime reference
+     * @param compiler    The Graal compiler reference
+     * @param multipliers The factors by which the default iterations
+     *                    of each template are scaled
+     * @param repetitions The number of classes per template and size
+     * @param threshold   The exponent above which a template is flagged
+     * @throws Exception if a class cannot be generated or compiled
+     */
+    private static void sweep(HotSpotJVMCIRuntime runtime,
+                              HotSpotGraalCompiler compiler,
+                              double[] multipliers,
+                              int repetitions,
+                              double threshold) throws Exception {
+
+        InMemoryClassSource memory = new InMemoryClassSource(Paths.get(OUTDIR));
+        ClassFileGenerator generator = new ClassFileGenerator(memory, repetitions, 0, 1, 0);
+        ScalingCurves curves = new ScalingCurves(threshold);
+
+        // the first round only warms up the compiler
+        for (int r = -1; r < repetitions; r++) {
+            for (Class<? extends Generative> template : ClassFileGenerator.templates()) {
+                for (int point = 0; point < multipliers.length; point++) {
+                    int iterations = Math.max(1, (int) Math.round(Generative.iterations(template) * multipliers[point]));
+                    int iter = (r + 1) * multipliers.length + point;
+
+                    String name = generator.generate(template, iter, iterations);
+                    try {
+                        CompilationSample sample = new ScalingRunner(memory, runtime, compiler).measure(name);
+                        if (r >= 0)
+                            curves.record(template.getSimpleName(), iterations, sample);
+                    } catch (Exception e) {
+                        logger.log(Level.WARNING, name + " - Compilation failed", e);
+                    } finally {
+                        memory.release(name);
+                        CodeCacheUsage.release(name);
+                    }
+                }
+            }
+            logger.info("Sweep round " + (r + 1) + "/" + repetitions + " finished");
         }
+
+        String report = curves.report();
+        logger.info("Compile time scaling\n" + report);
+        Files.write(Paths.get(SCALING_REPORT), Collections.singletonList(report), StandardCharsets.UTF_8);
+
+        ClassFileGenerator.templates().stream()
+                .map(Class::getSimpleName)
+                .filter(curves::isSuperlinear)
+                .forEach(t -> logger.warning(String.format(
+                        "Compile time of %s grows superlinearly (exponent %.2f)",
+                        t,
+                        curves.compileTimeExponent(t)
+                )));
     }
 
     // endregion
@@ -296,6 +1041,290 @@ public class GraalGeneratorTest implements Comparing {
                                 .type(Number.class)
                                 .build()
                 )
+                .addOption(
+                        Option.builder("w")
+                                .longOpt("workers")
+                                .desc("The number of workers that test generated classes concurrently")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder("m")
+                                .longOpt("in-memory")
+                                .desc("Keep generated classes in memory and only write mismatching or failing classes to the output directory (each class is still written once to a scratch directory by the generator)")
+                                .hasArg(false)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder("s")
+                                .longOpt("shard")
+                                .desc("Only generate the given slice <index>/<count> of all template repetitions")
+                                .hasArg(true)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("skip")
+                                .desc("The number of leading classes of the (shard's) generation sequence that are skipped")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("duration")
+                                .desc("The time budget in seconds after which no more classes are generated (unlimited repetitions unless -r is given)")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("checkpoint")
+                                .desc("The file that the campaign progress is periodically written to and resumed from")
+                                .hasArg(true)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("checkpoint-interval")
+                                .desc("The interval in seconds in which the checkpoint is written")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("report")
+                                .desc("The file that the outcome of each generated class is appended to")
+                                .hasArg(true)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder("c")
+                                .longOpt("compiler-threads")
+                                .desc("The number of threads that compile the methods of a class concurrently")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("stats-interval")
+                                .desc("The interval in seconds in which phase latencies and throughput are reported")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("benchmark")
+                                .desc("Execute the compiled and optimized code the given number of times and report classes whose optimized code is slower")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("slowdown-factor")
+                                .desc("The factor by which optimized code must be slower to be reported in benchmark mode")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("adaptive-warmup")
+                                .desc("Interpret each class until its profile is mature or stable, but at most the given number of times, before the optimized compilation")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("record-profiles")
+                                .desc("Store the profile of each class after its warmup in <class>.profile in the working directory")
+                                .hasArg(false)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("replay-profiles")
+                                .desc("Check that classes with a recorded profile reproduce it with the same warmup (saves no warmup time)")
+                                .hasArg(false)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("compile-only")
+                                .desc("Only compile all methods with and without profiling information to measure the compiler throughput")
+                                .hasArg(false)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("compile-outliers")
+                                .desc("Keep classes with methods whose compile time per bytecode exceeds the given multiple of the template's p99")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("result-cache")
+                                .desc("The directory where interpreted results are cached by class file and JVM version")
+                                .hasArg(true)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("dedup")
+                                .desc("Skip generated classes whose programs (ignoring the class name) were already generated in this campaign")
+                                .hasArg(false)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("seen-set")
+                                .desc("The file of program digests that persists the duplicate detection across campaigns (implies --dedup)")
+                                .hasArg(true)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("scheduler")
+                                .desc("The policy that selects the next template: round-robin (default) or bandit (favors templates with more findings per second)")
+                                .hasArg(true)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("sweep")
+                                .desc("Generate each template with the given comma-separated multiples of its iterations and fit the compile time growth")
+                                .hasArg(true)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("scaling-threshold")
+                                .desc("The compile time exponent above which a template is reported as superlinear in sweep mode")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("time-budget")
+                                .desc("The number of milliseconds that a single execution may run before it is stopped")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("allocation-budget")
+                                .desc("The number of megabytes that a single execution may allocate before it is stopped")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("metaspace-budget")
+                                .desc("The metaspace growth in megabytes after which a garbage collection is forced to unload tested classes (default 64)")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("class-budget")
+                                .desc("The number of additionally loaded classes after which a garbage collection is forced to unload tested classes (default 5000)")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("recycle-heap")
+                                .desc("The live heap in megabytes after which the JVM (or isolated worker) is replaced by a fresh one")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("recycle-metaspace")
+                                .desc("The used metaspace in megabytes after which the JVM (or isolated worker) is replaced by a fresh one")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("recycle-code-cache")
+                                .desc("The used code cache in megabytes after which the JVM (or isolated worker) is replaced by a fresh one")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("isolate")
+                                .desc("Run the compiled and optimized steps in the given number of warm worker processes, so that crashes do not stop the campaign")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("crash-dir")
+                                .desc("The directory where classes that crashed an isolated worker (or, with --report, this JVM) are stored (default ./crashes)")
+                                .hasArg(true)
+                                .required(false)
+                                .build()
+                )
+                .addOption(
+                        Option.builder()
+                                .longOpt("isolated-worker")
+                                .desc("Internal: serve the compiled and optimized steps of the parent process that listens on the given local port")
+                                .hasArg(true)
+                                .required(false)
+                                .type(Number.class)
+                                .build()
+                )
                 .addOption(
                         Option.builder("h")
                                 .longOpt("help")
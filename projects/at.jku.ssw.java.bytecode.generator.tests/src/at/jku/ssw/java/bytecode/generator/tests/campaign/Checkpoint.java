@@ -0,0 +1,246 @@
+package at.jku.ssw.java.bytecode.generator.tests.campaign;
+
+import at.jku.ssw.java.bytecode.generator.tests.generation.scheduling.TemplateScheduler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically persists the progress of a campaign so that it can be
+ * resumed after a restart without repeating finished work.
+ * Since the classes of a campaign are tested concurrently, they complete
+ * out of order. The checkpoint therefore records the number of leading
+ * generations (of the generator's shard) that are all complete, which
+ * is exactly the number of generations that a resumed campaign skips.
+ * Additionally, the elapsed time (to continue time budgets), the number of
+ * tested classes and the state of the template scheduler are stored.
+ */
+public final class Checkpoint implements Closeable {
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(Checkpoint.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The key of the number of completed leading generations.
+     */
+    private static final String COMPLETED = "completed";
+
+    /**
+     * The key of the elapsed time in nanoseconds.
+     */
+    private static final String ELAPSED = "elapsed";
+
+    /**
+     * The key of the number of tested classes.
+     */
+    private static final String TESTED = "tested";
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The checkpoint file.
+     */
+    private final Path file;
+
+    /**
+     * The scheduler whose state is stored.
+     */
+    private final TemplateScheduler scheduler;
+
+    /**
+     * The state that was restored from the checkpoint file.
+     */
+    private final Properties restored = new Properties();
+
+    /**
+     * The number of leading generations that are all complete.
+     */
+    private long completed;
+
+    /**
+     * The generations beyond {@link #completed} that are already complete.
+     */
+    private final TreeSet<Long> pending = new TreeSet<>();
+
+    /**
+     * The number of classes that were tested in total.
+     */
+    private long tested;
+
+    /**
+     * The time that elapsed in previous runs of the campaign.
+     */
+    private final long previouslyElapsed;
+
+    /**
+     * The time when this run of the campaign started.
+     */
+    private final long start = System.nanoTime();
+
+    /**
+     * The timer that writes the checkpoint periodically
+     * (or {@code null} if it was not started).
+     */
+    private ScheduledExecutorService timer;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Opens the given checkpoint. If the file exists, the progress and the
+     * scheduler state are restored from it.
+     *
+     * @param file      The checkpoint file
+     * @param scheduler The scheduler whose state is stored and restored
+     * @param skip      The number of leading generations that are skipped
+     *                  if there is no checkpoint yet
+     * @throws IOException if an existing checkpoint cannot be read
+     */
+    public Checkpoint(Path file, TemplateScheduler scheduler, long skip) throws IOException {
+        this.file = file;
+        this.scheduler = scheduler;
+
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                restored.load(in);
+            }
+            scheduler.restore(restored);
+            logger.info("Resuming campaign from " + file);
+        }
+
+        this.completed = Long.parseLong(restored.getProperty(COMPLETED, String.valueOf(skip)));
+        this.tested = Long.parseLong(restored.getProperty(TESTED, "0"));
+        this.previouslyElapsed = Long.parseLong(restored.getProperty(ELAPSED, "0"));
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * @return the number of leading generations that were already completed
+     * (and are skipped by a resumed campaign)
+     */
+    public synchronized long completed() {
+        return completed;
+    }
+
+    /**
+     * @return the time that elapsed in the campaign so far
+     * (including previous runs) in nanoseconds
+     */
+    public long elapsed() {
+        return previouslyElapsed + System.nanoTime() - start;
+    }
+
+    /**
+     * Marks the generation with the given index as complete.
+     *
+     * @param index The index of the generation within the generator's shard
+     */
+    public synchronized void complete(long index) {
+        tested++;
+
+        if (index < completed)
+            return;
+
+        pending.add(index);
+        while (!pending.isEmpty() && pending.first() == completed) {
+            pending.pollFirst();
+            completed++;
+        }
+    }
+
+    /**
+     * Writes the checkpoint every {@code interval} seconds.
+     *
+     * @param interval The interval in seconds
+     */
+    public synchronized void saveEvery(long interval) {
+        if (timer != null)
+            return;
+
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+
+        timer.scheduleAtFixedRate(() -> {
+            try {
+                save();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not write checkpoint " + file, e);
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes the checkpoint.
+     * The file is replaced atomically, so a crash never leaves a partial
+     * checkpoint behind.
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void save() throws IOException {
+        Properties p = new Properties();
+        synchronized (this) {
+            p.setProperty(COMPLETED, String.valueOf(completed));
+            p.setProperty(TESTED, String.valueOf(tested));
+        }
+        p.setProperty(ELAPSED, String.valueOf(elapsed()));
+        scheduler.save(p);
+
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            p.store(out, "campaign checkpoint");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * Stops the periodic checkpoints and writes the final checkpoint.
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (timer != null)
+                timer.shutdownNow();
+        }
+        save();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,240 @@
+package at.jku.ssw.java.bytecode.generator.tests.campaign;
+
+import at.jku.ssw.java.bytecode.generator.tests.logging.Logging;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A concurrent generate-and-test pipeline.
+ * A single producer lazily pulls class names from the given source
+ * (e.g. a {@link at.jku.ssw.java.bytecode.generator.tests.generation.ClassFileGenerator})
+ * and feeds them into a bounded queue from which a fixed number of workers
+ * take classes and test them independently.
+ */
+public class Pipeline implements Logging {
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(Pipeline.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * Marker that signals the workers that no more classes follow.
+     * It is compared by identity, therefore it cannot clash with actual
+     * classes.
+     */
+    private static final Queued END = new Queued(null, -1);
+
+    /**
+     * The number of queued classes per worker.
+     * This limits how far the generation may run ahead of the tests.
+     */
+    private static final int QUEUED_PER_WORKER = 2;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Nested types
+
+    /**
+     * Describes a test stage that processes a single class.
+     */
+    @FunctionalInterface
+    public interface Tester {
+        /**
+         * Tests the class that is identified by the given name.
+         *
+         * @param className The name of the class that is tested
+         * @param position  The position of the class in the source
+         * @throws Exception if the test fails
+         */
+        void test(String className, long position) throws Exception;
+    }
+
+    /**
+     * A queued class and its position in the source.
+     */
+    private static final class Queued {
+
+        /**
+         * The name of the class.
+         */
+        private final String className;
+
+        /**
+         * The position of the class in the source.
+         */
+        private final long position;
+
+        /**
+         * Creates a new queued class.
+         *
+         * @param className The name of the class
+         * @param position  The position of the class in the source
+         */
+        private Queued(String className, long position) {
+            this.className = className;
+            this.position = position;
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The source of the class names (the generation stage).
+     */
+    private final Iterable<String> source;
+
+    /**
+     * Supplies a tester for each worker.
+     */
+    private final Callable<Tester> testers;
+
+    /**
+     * The number of concurrent tester workers.
+     */
+    private final int workers;
+
+    /**
+     * The number of classes that have been tested.
+     */
+    private final AtomicInteger tested = new AtomicInteger();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new pipeline.
+     *
+     * @param source  The iterable that produces the names of the classes
+     *                that are tested
+     * @param testers The factory that creates one tester per worker
+     * @param workers The number of concurrent workers
+     */
+    public Pipeline(Iterable<String> source, Callable<Tester> testers, int workers) {
+        assert source != null;
+        assert testers != null;
+
+        if (workers <= 0)
+            throw new IllegalArgumentException("The number of workers must be greater than 0");
+
+        this.source = source;
+        this.testers = testers;
+        this.workers = workers;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Execution
+
+    /**
+     * Runs the pipeline until the source is exhausted.
+     * The first failure of any stage stops the whole pipeline.
+     *
+     * @throws ExecutionException   if any stage fails
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public void run() throws ExecutionException, InterruptedException {
+        final BlockingQueue<Queued> queue = new ArrayBlockingQueue<>(workers * QUEUED_PER_WORKER);
+        final ExecutorService threads = Executors.newFixedThreadPool(workers + 1, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "pipeline-" + count.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        final CompletionService<Void> stages = new ExecutorCompletionService<>(threads);
+
+        info("Starting pipeline with %d worker(s)", workers);
+
+        try {
+            stages.submit(() -> produce(queue));
+
+            for (int i = 0; i < workers; i++) {
+                final Tester tester = testers.call();
+                stages.submit(() -> consume(queue, tester));
+            }
+
+            // wait for all stages and abort on the first failure
+            for (int i = 0; i <= workers; i++)
+                stages.take().get();
+
+        } catch (ExecutionException | InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExecutionException(e);
+        } finally {
+            threads.shutdownNow();
+        }
+
+        info("Pipeline finished after %d class(es)", tested.get());
+    }
+
+    /**
+     * Generation stage that feeds all class names to the queue and
+     * terminates each worker afterwards.
+     *
+     * @param queue The queue that is filled
+     * @return nothing
+     * @throws InterruptedException if the pipeline is aborted
+     */
+    private Void produce(BlockingQueue<Queued> queue) throws InterruptedException {
+        Iterator<String> it = source.iterator();
+        for (long position = 0; it.hasNext() && !Thread.currentThread().isInterrupted(); position++)
+            queue.put(new Queued(it.next(), position));
+
+        for (int i = 0; i < workers; i++)
+            queue.put(END);
+
+        return null;
+    }
+
+    /**
+     * Test stage that processes classes until the end of the queue is
+     * reached.
+     *
+     * @param queue  The queue from which the classes are taken
+     * @param tester The tester of this worker
+     * @return nothing
+     * @throws Exception if a test fails
+     */
+    private Void consume(BlockingQueue<Queued> queue, Tester tester) throws Exception {
+        for (Queued queued = queue.take(); queued != END; queued = queue.take()) {
+            tester.test(queued.className, queued.position);
+            tested.incrementAndGet();
+            Metrics.classTested();
+        }
+        return null;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Logger logger() {
+        return logger;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,139 @@
+package at.jku.ssw.java.bytecode.generator.tests.campaign;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A line-based report that records the outcome of each tested class.
+ * Each line is flushed immediately, so the report remains valid even if
+ * the JVM crashes. The format is {@code <STATUS> <class name> [<index>]},
+ * where the optional index is the position of the class in the (shard's)
+ * generation or replay sequence. A class whose test started but that has
+ * no other status killed the JVM.
+ */
+public final class Report implements Closeable {
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * Status of classes whose results match.
+     */
+    public static final String PASS = "PASS";
+
+    /**
+     * Status of classes where at least one result mismatches.
+     */
+    public static final String MISMATCH = "MISMATCH";
+
+    /**
+     * Status of classes that could not be tested.
+     */
+    public static final String ERROR = "ERROR";
+
+    /**
+     * Status of generated classes that were skipped since they duplicate
+     * an earlier program.
+     */
+    public static final String DUPLICATE = "DUPLICATE";
+
+    /**
+     * Status of classes that crashed an isolated worker process.
+     */
+    public static final String CRASH = "CRASH";
+
+    /**
+     * Status of classes that were only compiled (and not compared).
+     */
+    public static final String COMPILED = "COMPILED";
+
+    /**
+     * Status of classes whose test started (and is followed by the final
+     * status once the test is complete).
+     */
+    public static final String STARTED = "STARTED";
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The writer that appends to the report file.
+     */
+    private final BufferedWriter writer;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Opens the report at the given location.
+     * Existing reports are continued.
+     *
+     * @param file The report file
+     * @throws IOException if the file cannot be opened
+     */
+    public Report(Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(
+                file,
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND
+        );
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Records the given status of the given class and its position.
+     *
+     * @param className The name of the tested class
+     * @param status    One of {@link #PASS}, {@link #MISMATCH},
+     *                  {@link #ERROR}, {@link #DUPLICATE}, {@link #CRASH},
+     *                  {@link #COMPILED} or {@link #STARTED}
+     * @param index     The position of the class in the (shard's)
+     *                  generation or replay sequence
+     * @throws IOException if the report cannot be written
+     */
+    public void record(String className, String status, long index) throws IOException {
+        write(status + " " + className + " " + index);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * Appends the given line and flushes it.
+     *
+     * @param line The line
+     * @throws IOException if the report cannot be written
+     */
+    private synchronized void write(String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+        writer.flush();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,128 @@
+package at.jku.ssw.java.bytecode.generator.tests.campaign;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the outcome of all tested classes and describes it in a
+ * compact summary once the campaign is finished.
+ * Failures are summarized in a single line per class, so the summary
+ * stays readable even if many classes fail.
+ * It is safe to be shared between concurrent workers.
+ */
+public final class Summary {
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The maximum number of classes that are listed per status.
+     */
+    private static final int MAX_LISTED = 50;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The number of classes whose results match.
+     */
+    private int passed;
+
+    /**
+     * The names of the classes whose results mismatch.
+     */
+    private final List<String> mismatches = new ArrayList<>();
+
+    /**
+     * The names of the classes that could not be tested and the reason.
+     */
+    private final List<String> errors = new ArrayList<>();
+
+    /**
+     * The names of the classes that crashed an isolated worker.
+     */
+    private final List<String> crashes = new ArrayList<>();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Records the outcome of the given class.
+     *
+     * @param className The name of the tested class
+     * @param passed    {@code true} if all results match
+     */
+    public synchronized void record(String className, boolean passed) {
+        if (passed)
+            this.passed++;
+        else
+            mismatches.add(className);
+    }
+
+    /**
+     * Records that the given class could not be tested.
+     *
+     * @param className The name of the class
+     * @param error     The reason
+     */
+    public synchronized void error(String className, Throwable error) {
+        errors.add(className + ": " + error);
+    }
+
+    /**
+     * Records that the given class crashed an isolated worker.
+     *
+     * @param className The name of the class
+     */
+    public synchronized void crash(String className) {
+        crashes.add(className);
+    }
+
+    /**
+     * Describes the outcome of all classes.
+     *
+     * @return a multi-line summary
+     */
+    public synchronized String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(
+                "%d class(es): %d passed, %d mismatched, %d failed, %d crashed%n",
+                passed + mismatches.size() + errors.size() + crashes.size(),
+                passed,
+                mismatches.size(),
+                errors.size(),
+                crashes.size()
+        ));
+
+        list(sb, Report.MISMATCH, mismatches);
+        list(sb, Report.ERROR, errors);
+        list(sb, Report.CRASH, crashes);
+
+        return sb.toString();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * Appends (at most {@link #MAX_LISTED} of) the given entries.
+     *
+     * @param sb      The target
+     * @param status  The status of the entries
+     * @param entries The entries
+     */
+    private static void list(StringBuilder sb, String status, List<String> entries) {
+        entries.stream()
+                .limit(MAX_LISTED)
+                .forEach(e -> sb.append(String.format("  %s %s%n", status, e)));
+
+        if (entries.size() > MAX_LISTED)
+            sb.append(String.format("  ... and %d more%n", entries.size() - MAX_LISTED));
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -3,6 +3,7 @@ package at.jku.ssw.java.bytecode.generator.tests.comparison;
 import at.jku.ssw.java.bytecode.generator.tests.logging.Logging;
 import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
 
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 /**
@@ -86,31 +87,51 @@ public interface Comparing extends Logging {
 
     /**
      * Compares two {@link ExecutionResult}s and lots any mismatches.
+     * The outputs are only compared line by line if their digests differ.
      *
      * @param expected The expected result
      * @param actual   The actual result
+     * @return {@code true} if the results match; {@code false} otherwise
      */
-    default void compareResults(ExecutionResult expected, ExecutionResult actual) {
+    default boolean compareResults(ExecutionResult expected, ExecutionResult actual) {
+        // if the interpreter was stopped, the (faster) compiled code may or
+        // may not finish within the same budget, so nothing can be compared
+        if (expected.timedOut())
+            return true;
+
+        // otherwise the compiled code must not have been stopped either
+        if (actual.timedOut())
+            return compare(false, true, "Execution timed out");
+
+        boolean match = true;
+
         // check if the result should contain an exception
         if (expected.exception() != null) {
             // if so, ensure that the actual result also contains one
             if (compare(expected.exception(), actual.exception(), "Expected exception")) {
                 // if so, compare the exception types
                 // (e.g. ArrayOutOfBoundsException vs. NullPointerException)
-                compare(expected.exception().getClass(), actual.exception().getClass(), "Wrong exception type");
+                match &= compare(expected.exception().getClass(), actual.exception().getClass(), "Wrong exception type");
                 // compare the actual messages (for same exceptions for different occasions - e.g. IOException)
-                compare(expected.exception().getMessage(), actual.exception().getMessage(), "Wrong exception message");
+                match &= compare(expected.exception().getMessage(), actual.exception().getMessage(), "Wrong exception message");
+            } else {
+                match = false;
             }
         } else {
             // ensure that the actual result also does not contain an exception
-            compare(null, actual.exception(), "Unexpected exception");
+            match &= compare(null, actual.exception(), "Unexpected exception");
 
             // if the result should not be null, compare them directly
             if (expected.result() != null)
-                compare(expected.result(), actual.result(), "Wrong result");
+                match &= compare(expected.result(), actual.result(), "Wrong result");
             else
                 // otherwise ensure that also the actual result is null
-                compare(null, actual.result(), "Unexpected result");
+                match &= compare(null, actual.result(), "Unexpected result");
+
+            // compare the digests of the outputs first
+            // and only look at the individual lines if they differ
+            if (expected.lines() == actual.lines() && Arrays.equals(expected.digest(), actual.digest()))
+                return match;
 
             // extract the (expected / actual) output (of STDIN)
             // and consider the individual lines
@@ -122,15 +143,17 @@ public interface Comparing extends Logging {
                 // ensure that both outputs have equal number of lines
                 if (i >= linesExpected.length)
                     // otherwise note the additional output
-                    compareLines("", linesActual[i], i);
+                    match &= compareLines("", linesActual[i], i);
                 else if (i >= linesActual.length)
                     // if the given output is too short, it is also noted
-                    compareLines(linesExpected[i], "", i);
+                    match &= compareLines(linesExpected[i], "", i);
                 else
                     // otherwise compare the lines directly
-                    compareLines(linesExpected[i], linesActual[i], i);
+                    match &= compareLines(linesExpected[i], linesActual[i], i);
             }
         }
+
+        return match;
     }
 
     /**
@@ -139,9 +162,10 @@ public interface Comparing extends Logging {
      * @param expected The expected output line
      * @param actual   The actual output line
      * @param line     The line number (for the output)
+     * @return {@code true} if the lines are equal; {@code false} otherwise
      */
-    default void compareLines(String expected, String actual, int line) {
-        compare(expected, actual, "Line " + line);
+    default boolean compareLines(String expected, String actual, int line) {
+        return compare(expected, actual, "Line " + line);
     }
 
     // endregion
@@ -0,0 +1,36 @@
+package at.jku.ssw.java.bytecode.generator.tests.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Compilation of a single method of a class under test.
+ */
+@Name("at.jku.ssw.java.bytecode.generator.tests.CompileMethod")
+@Label("Compile Method")
+@Category({"Graal Generator Tests"})
+@Description("Compilation of a single method of a class under test.")
+public class CompileMethodEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Bytecode Size")
+    @DataAmount
+    public int bytecodeSize;
+
+    @Label("Installed Code Size")
+    @DataAmount
+    public long installedCodeSize;
+
+    @Label("Profiled")
+    @Description("Whether profiling information was used for the compilation")
+    public boolean profiled;
+
+    @Label("Installed")
+    public boolean installed;
+}
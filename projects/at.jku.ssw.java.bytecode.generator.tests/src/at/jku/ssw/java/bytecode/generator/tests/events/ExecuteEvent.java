@@ -0,0 +1,29 @@
+package at.jku.ssw.java.bytecode.generator.tests.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Execution of the installed code of the main method of a class.
+ */
+@Name("at.jku.ssw.java.bytecode.generator.tests.Execute")
+@Label("Execute Compiled Class")
+@Category({"Graal Generator Tests"})
+@Description("Execution of the installed code of the main method of a class.")
+public class ExecuteEvent extends Event {
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Profiled")
+    @Description("Whether the code was compiled using profiling information")
+    public boolean profiled;
+
+    @Label("Output Size")
+    @DataAmount
+    public long outputSize;
+}
@@ -0,0 +1,23 @@
+package at.jku.ssw.java.bytecode.generator.tests.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Generation of a class file from a template.
+ */
+@Name("at.jku.ssw.java.bytecode.generator.tests.Generate")
+@Label("Generate Class")
+@Category({"Graal Generator Tests"})
+@Description("Generation of a class file from a template.")
+public class GenerateEvent extends Event {
+
+    @Label("Template")
+    public String template;
+
+    @Label("Class Name")
+    public String className;
+}
@@ -0,0 +1,25 @@
+package at.jku.ssw.java.bytecode.generator.tests.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Execution of the main method of a class in the interpreter.
+ */
+@Name("at.jku.ssw.java.bytecode.generator.tests.Interpret")
+@Label("Interpret Class")
+@Category({"Graal Generator Tests"})
+@Description("Execution of the main method of a class in the interpreter.")
+public class InterpretEvent extends Event {
+
+    @Label("Class Name")
+    public String className;
+
+    @Label("Output Size")
+    @DataAmount
+    public long outputSize;
+}
@@ -0,0 +1,20 @@
+package at.jku.ssw.java.bytecode.generator.tests.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * (Re-)loading of a class under test via a fresh class loader.
+ */
+@Name("at.jku.ssw.java.bytecode.generator.tests.Load")
+@Label("Load Class")
+@Category({"Graal Generator Tests"})
+@Description("(Re-)loading of a class under test via a fresh class loader.")
+public class LoadEvent extends Event {
+
+    @Label("Class Name")
+    public String className;
+}
@@ -3,20 +3,36 @@ package at.jku.ssw.java.bytecode.generator.tests.generation;
 import at.jku.ssw.java.bytecode.generator.cli.ControlValueParser;
 import at.jku.ssw.java.bytecode.generator.cli.GenerationController;
 import at.jku.ssw.java.bytecode.generator.generators.RandomCodeGenerator;
+import at.jku.ssw.java.bytecode.generator.tests.events.GenerateEvent;
 import at.jku.ssw.java.bytecode.generator.tests.generation.classes.*;
+import at.jku.ssw.java.bytecode.generator.tests.generation.scheduling.RoundRobinScheduler;
+import at.jku.ssw.java.bytecode.generator.tests.generation.scheduling.TemplateScheduler;
+import at.jku.ssw.java.bytecode.generator.tests.loading.InMemoryClassSource;
 import at.jku.ssw.java.bytecode.generator.tests.logging.Logging;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.CpuTime;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Phase;
+import at.jku.ssw.java.bytecode.generator.tests.utils.ClassFiles;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
  * A generator that allows for repeated generation of a limited number of
  * predefined class types.
  * It is iterable where each iteration lazily generates a new class file
- * and returns the file location.
+ * and returns the class name. The class file is either written to the
+ * working directory or kept in an {@link InMemoryClassSource}.
  */
 public class ClassFileGenerator implements Logging, Iterable<String> {
 
@@ -54,14 +70,85 @@ public class ClassFileGenerator implements Logging, Iterable<String> {
 
     /**
      * The working directory where each class file is generated in.
+     * If the classes are kept in memory, this is a temporary scratch
+     * directory that is only created on demand.
      */
-    private final Path workingDirectory;
+    private Path workingDirectory;
+
+    /**
+     * The in-memory target of the generated classes
+     * (or {@code null} if the classes are written to the working directory).
+     */
+    private final InMemoryClassSource memory;
 
     /**
      * The number of times each class type should be generated.
      */
     private final int iterations;
 
+    /**
+     * The index of the shard that this generator produces.
+     */
+    private final int shard;
+
+    /**
+     * The total number of shards.
+     * Each shard covers every {@code shards}-th generation, so all shards
+     * together cover each template / repetition pair exactly once.
+     */
+    private final int shards;
+
+    /**
+     * The number of generations of this shard that are skipped
+     * (e.g. because they were already tested before).
+     */
+    private final int skip;
+
+    /**
+     * The programs that were already generated
+     * (or {@code null} if duplicates are not detected).
+     */
+    private SeenSet seen;
+
+    /**
+     * The names of the generated classes that duplicate earlier programs
+     * and whose class files were therefore discarded.
+     */
+    private final Set<String> duplicates = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The normalized digests of the generated (non-duplicate) classes
+     * that were not yet reported via {@link #tested(String)}.
+     */
+    private final Map<String, byte[]> digests = new ConcurrentHashMap<>();
+
+    /**
+     * The policy that selects the template of each generation.
+     */
+    private TemplateScheduler scheduler = new RoundRobinScheduler();
+
+    /**
+     * The point in time (in terms of {@link System#nanoTime()}) after which
+     * no more classes are generated (only if {@link #budgeted} is set).
+     */
+    private long deadline;
+
+    /**
+     * Whether the generation stops at the {@link #deadline}.
+     */
+    private boolean budgeted;
+
+    /**
+     * Whether the generation was stopped prematurely.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * The index within this generator's shard of each generated class
+     * that was not yet reported via {@link #sequenceNumber(String)}.
+     */
+    private final Map<String, Long> sequenceNumbers = new ConcurrentHashMap<>();
+
     // endregion
     //-------------------------------------------------------------------------
     // region Initialization
@@ -73,14 +160,179 @@ public class ClassFileGenerator implements Logging, Iterable<String> {
      * @param iterations       The iteration count
      */
     public ClassFileGenerator(Path workingDirectory, int iterations) {
+        this(workingDirectory, iterations, 0, 1, 0);
+    }
+
+    /**
+     * Creates a new generator that only generates a disjoint slice of
+     * all template / repetition pairs.
+     *
+     * @param workingDirectory The path at which all class file are generated
+     * @param iterations       The iteration count
+     * @param shard            The index of the slice (starting at 0)
+     * @param shards           The total number of slices
+     * @param skip             The number of leading generations of this
+     *                         slice that are skipped
+     */
+    public ClassFileGenerator(Path workingDirectory,
+                              int iterations,
+                              int shard,
+                              int shards,
+                              int skip) {
+        this(workingDirectory, null, iterations, shard, shards, skip);
+    }
+
+    /**
+     * Creates a new generator that keeps the generated classes in memory
+     * instead of the working directory.
+     *
+     * @param memory     The in-memory source that receives the class files
+     * @param iterations The iteration count
+     * @param shard      The index of the slice (starting at 0)
+     * @param shards     The total number of slices
+     * @param skip       The number of leading generations of this slice
+     *                   that are skipped
+     * @see #ClassFileGenerator(Path, int, int, int, int)
+     */
+    public ClassFileGenerator(InMemoryClassSource memory,
+                              int iterations,
+                              int shard,
+                              int shards,
+                              int skip) {
+        this(null, memory, iterations, shard, shards, skip);
+    }
+
+    /**
+     * @see #ClassFileGenerator(Path, int, int, int, int)
+     * @see #ClassFileGenerator(InMemoryClassSource, int, int, int, int)
+     */
+    private ClassFileGenerator(Path workingDirectory,
+                               InMemoryClassSource memory,
+                               int iterations,
+                               int shard,
+                               int shards,
+                               int skip) {
+        if (shards <= 0 || shard < 0 || shard >= shards)
+            throw new IllegalArgumentException("Invalid shard " + shard + "/" + shards);
+        if (skip < 0)
+            throw new IllegalArgumentException("The number of skipped classes must at least be 0");
+
         this.workingDirectory = workingDirectory;
+        this.memory = memory;
         this.iterations = iterations;
+        this.shard = shard;
+        this.shards = shards;
+        this.skip = skip;
     }
 
     // endregion
     //-------------------------------------------------------------------------
     // region Generator methods
 
+    /**
+     * Enables the detection of duplicate programs.
+     * Each class that is generated by this generator's iterator is
+     * normalized (ignoring the class name and therefore the repetition
+     * postfix) and hashed. If the program was already seen, its class file
+     * is discarded immediately and the class is marked as duplicate.
+     * Other programs are only persisted in the seen set once their test is
+     * finished (see {@link #tested(String)}).
+     *
+     * @param seen The programs that were already generated
+     * @see #isDuplicate(String)
+     */
+    public void deduplicate(SeenSet seen) {
+        this.seen = seen;
+    }
+
+    /**
+     * Replaces the policy that selects the template of each generation
+     * (which is {@link RoundRobinScheduler} by default).
+     * The total number of generations remains the number of iterations
+     * times the number of templates.
+     *
+     * @param scheduler The scheduling policy
+     */
+    public void schedule(TemplateScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Limits the generation to the given time budget. Once the budget is
+     * exhausted, no more classes are generated even if the iteration count
+     * was not reached yet.
+     *
+     * @param nanos The time budget in nanoseconds (starting now)
+     */
+    public void limit(long nanos) {
+        this.deadline = System.nanoTime() + nanos;
+        this.budgeted = true;
+    }
+
+    /**
+     * Stops the generation, i.e. no more classes are generated (while the
+     * classes that were already generated are still available).
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Returns the index of the given class within this generator's shard,
+     * which is the number of generations that a resumed campaign skips
+     * to continue after this class. Each class is only reported once.
+     *
+     * @param className The name of a class that this generator produced
+     * @return the index of the generation
+     */
+    public long sequenceNumber(String className) {
+        Long index = sequenceNumbers.remove(className);
+        if (index == null)
+            throw new IllegalArgumentException("Unknown class " + className);
+
+        return index;
+    }
+
+    /**
+     * @return the policy that selects the template of each generation
+     */
+    public TemplateScheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Checks whether the given class duplicates an earlier program and
+     * must therefore be skipped. Each class is only reported once.
+     *
+     * @param className The name of a class that this generator produced
+     * @return {@code true} if the class is a duplicate and its class file
+     * was discarded
+     */
+    public boolean isDuplicate(String className) {
+        return duplicates.remove(className);
+    }
+
+    /**
+     * Marks the test of the given class as finished (with any status),
+     * which persists its program in the seen set (if duplicates are
+     * detected). Each class is only reported once.
+     *
+     * @param className The name of a class that this generator produced
+     * @throws IOException if the program cannot be persisted
+     */
+    public void tested(String className) throws IOException {
+        byte[] digest = digests.remove(className);
+        if (digest != null)
+            seen.persist(digest);
+    }
+
+    /**
+     * @return the class types that are generated (in generation order)
+     */
+    public static List<Class<? extends Generative>> templates() {
+        return Collections.unmodifiableList(CLASS_TYPES);
+    }
+
     /**
      * Creates a class file in the working directory using the given class
      * type as a template and the iteration counter for naming.
@@ -89,23 +341,101 @@ public class ClassFileGenerator implements Logging, Iterable<String> {
      * @param iter  The current iteration that is appended to the class name
      * @return the name of the generated class
      */
-    private String generate(Class<? extends Generative> clazz, int iter) {
+    public String generate(Class<? extends Generative> clazz, int iter) {
+        return generate(clazz, iter, Generative.iterations(clazz));
+    }
+
+    /**
+     * Creates a class file in the working directory using the given class
+     * type as a template but with the given number of generation
+     * iterations.
+     *
+     * @param clazz      The class type that describes the generation
+     *                   parameters
+     * @param iter       The current iteration that is appended to the class
+     *                   name
+     * @param iterations The number of generation iterations
+     *                   (overrides the template's default)
+     * @return the name of the generated class
+     * @see #generate(Class, int)
+     */
+    public String generate(Class<? extends Generative> clazz, int iter, int iterations) {
         assert clazz != null;
 
         info(clazz, "Generating class");
+        GenerateEvent event = new GenerateEvent();
+        event.begin();
+        final long start = System.nanoTime();
 
-        ControlValueParser parser = new ControlValueParser(Generative.args(clazz, iter));
+        ControlValueParser parser = new ControlValueParser(Generative.args(clazz, iter, iterations));
         GenerationController controller = parser.parse();
 
         final String className = controller.getFileName();
 
         RandomCodeGenerator randomCodeGenerator = new RandomCodeGenerator(className, controller);
         randomCodeGenerator.generate();
-        randomCodeGenerator.writeFile(workingDirectory.toString());
+
+        try {
+            if (memory == null) {
+                randomCodeGenerator.writeFile(workingDirectory.toString());
+            } else {
+                // RandomCodeGenerator only offers writeFile(directory),
+                // therefore the class file still makes one round trip
+                // through a (local) scratch directory before it is only
+                // kept in memory
+                if (workingDirectory == null) {
+                    workingDirectory = Files.createTempDirectory("generated_classes");
+                    workingDirectory.toFile().deleteOnExit();
+                }
+
+                randomCodeGenerator.writeFile(workingDirectory.toString());
+
+                Path classFile = workingDirectory.resolve(className + ".class");
+                memory.put(className, Files.readAllBytes(classFile));
+                Files.delete(classFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Metrics.record(clazz.getSimpleName(), Phase.GENERATE, start);
+        event.template = clazz.getSimpleName();
+        event.className = className;
+        event.commit();
 
         return className;
     }
 
+    /**
+     * Checks whether the program of the given class was already seen and
+     * discards the class file if so.
+     *
+     * @param className The name of the generated class
+     */
+    private void checkDuplicate(String className) {
+        try {
+            Path classFile = memory == null ? workingDirectory.resolve(className + ".class") : null;
+            byte[] bytes = memory == null ? Files.readAllBytes(classFile) : memory.get(className);
+
+            byte[] digest = ClassFiles.normalizedDigest(bytes);
+            if (seen.add(digest)) {
+                digests.put(className, digest);
+                return;
+            }
+
+            info(className, "Skipping duplicate program");
+            duplicates.add(className);
+            Metrics.duplicateSkipped();
+
+            if (memory == null)
+                Files.delete(classFile);
+            else
+                memory.release(className);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     // endregion
     //-------------------------------------------------------------------------
     // region Overridden methods
@@ -124,8 +454,7 @@ public class ClassFileGenerator implements Logging, Iterable<String> {
     @Override
     public Iterator<String> iterator() {
 
-        final int totalGenerations = iterations * CLASS_TYPES.size();
-        final int nClasses = CLASS_TYPES.size();
+        final long totalGenerations = (long) iterations * CLASS_TYPES.size();
 
         /*
             create a new iterator that (repeatedly) iterates over the given
@@ -135,17 +464,20 @@ public class ClassFileGenerator implements Logging, Iterable<String> {
 
             /**
              * The counter that increases for each generation.
-             * In order to reiterate the class array, the relative index
-             * therefore has to be calculated.
+             * The scheduler maps it to the template and its repetition.
+             * Only every {@code shards}-th generation belongs to this
+             * generator.
              */
-            private int counter = 0;
+            private long counter = shard + (long) skip * shards;
 
             /**
              * {@inheritDoc}
              */
             @Override
             public boolean hasNext() {
-                return counter < totalGenerations;
+                return counter < totalGenerations
+                        && !stopped
+                        && (!budgeted || System.nanoTime() - deadline < 0);
             }
 
             /**
@@ -153,18 +485,27 @@ public class ClassFileGenerator implements Logging, Iterable<String> {
              */
             @Override
             public String next() {
-                int currIteration = counter / nClasses;
-                int currClassType = counter % nClasses;
-                counter++;
+                final long start = CpuTime.current();
 
-                // get the current class type
-                Class<? extends Generative> classType =
-                        CLASS_TYPES.get(currClassType);
+                // let the scheduler select the current class type
+                Class<? extends Generative> classType = scheduler.next(CLASS_TYPES, counter);
+                int currIteration = scheduler.repetition(CLASS_TYPES, counter);
+                long index = (counter - shard) / shards;
+                counter += shards;
 
                 info(classType, "%d", currIteration);
 
                 // generate the class
-                return generate(classType, currIteration);
+                String className = generate(classType, currIteration);
+                sequenceNumbers.put(className, index);
+
+                if (seen != null)
+                    checkDuplicate(className);
+
+                // the generation is part of the template's cost
+                scheduler.record(classType.getSimpleName(), CpuTime.current() - start, 0);
+
+                return className;
             }
         };
     }
@@ -0,0 +1,144 @@
+package at.jku.ssw.java.bytecode.generator.tests.generation;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * The set of normalized class file digests of all programs that were
+ * already generated.
+ * The set is either only kept for the current campaign or backed by a
+ * file that contains one hexadecimal digest per line, so that programs
+ * are also recognized in later campaigns.
+ * New digests are only recognized within the current campaign until they
+ * are persisted (see {@link #persist(byte[])}), so that programs whose
+ * test never finished (e.g. because the JVM crashed) are generated and
+ * tested again by a resumed campaign.
+ */
+public final class SeenSet implements Closeable {
+
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The hexadecimal digests of all seen programs.
+     */
+    private final Set<String> digests = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The writer that appends new digests to the backing file
+     * (or {@code null} if the set is not persistent).
+     */
+    private final BufferedWriter writer;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new, empty set that is only kept in memory.
+     */
+    public SeenSet() {
+        this.writer = null;
+    }
+
+    /**
+     * Loads the set from the given file and appends all new digests to it.
+     *
+     * @param file The backing file (which is created if it does not exist)
+     * @throws IOException if the file cannot be read or opened
+     */
+    public SeenSet(Path file) throws IOException {
+        if (Files.exists(file)) {
+            try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+                lines.map(String::trim)
+                        .filter(l -> !l.isEmpty())
+                        .forEach(digests::add);
+            }
+        }
+
+        this.writer = Files.newBufferedWriter(
+                file,
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND
+        );
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Adds the given digest to the set (but does not persist it yet).
+     *
+     * @param digest The normalized digest of a program
+     * @return {@code true} if the program was not seen before
+     */
+    public boolean add(byte[] digest) {
+        return digests.add(hex(digest));
+    }
+
+    /**
+     * Appends the given digest to the backing file (if any), so that the
+     * program is also recognized in later campaigns.
+     *
+     * @param digest The normalized digest of a program
+     * @throws IOException if the digest cannot be persisted
+     */
+    public void persist(byte[] digest) throws IOException {
+        if (writer == null)
+            return;
+
+        synchronized (writer) {
+            writer.write(hex(digest));
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * @return the number of seen programs
+     */
+    public int size() {
+        return digests.size();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * @param digest The digest
+     * @return the hexadecimal representation of the digest
+     */
+    private static String hex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer != null)
+            writer.close();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
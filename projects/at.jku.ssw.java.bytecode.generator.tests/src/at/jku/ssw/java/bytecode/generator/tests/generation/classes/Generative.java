@@ -50,14 +50,44 @@ public abstract class Generative {
      * arguments)
      */
     public static String[] args(Class<? extends Generative> clazz, int iter) {
+        return args(clazz, iter, iterations(clazz));
+    }
+
+    /**
+     * Returns the command line arguments that are defined by the given
+     * {@link Generative} class for the given iteration but overrides
+     * the number of generation iterations.
+     *
+     * @param clazz      The class that is generated and which specifies
+     *                   the arguments
+     * @param iter       The current iteration (to adapt the class name
+     *                   accordingly)
+     * @param iterations The number of iterations to use instead of
+     *                   the class' default
+     * @return an array of strings that describe the individual command
+     * line argument parts
+     * @see #args(Class, int)
+     */
+    public static String[] args(Class<? extends Generative> clazz, int iter, int iterations) {
         CLIArguments args = clazz.getAnnotation(CLIArguments.class);
 
         return Stream.concat(
                 Stream.of(
-                        "-l", String.valueOf(args.iterations()),    // use `iters` iterations to generate the class
+                        "-l", String.valueOf(iterations),           // use `iters` iterations to generate the class
                         "-filename", clazz.getSimpleName() + iter   // use file name
                 ),
                 Stream.of(args.args())
         ).toArray(String[]::new);
     }
+
+    /**
+     * Returns the default number of generation iterations of the given
+     * {@link Generative} class.
+     *
+     * @param clazz The class that specifies the arguments
+     * @return the number of iterations
+     */
+    public static int iterations(Class<? extends Generative> clazz) {
+        return clazz.getAnnotation(CLIArguments.class).iterations();
+    }
 }
@@ -0,0 +1,247 @@
+package at.jku.ssw.java.bytecode.generator.tests.generation.scheduling;
+
+import at.jku.ssw.java.bytecode.generator.tests.generation.classes.Generative;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * {@link TemplateScheduler} that treats the templates as arms of a
+ * multi-armed bandit whose reward is the number of findings per
+ * CPU-second (see {@link #record(String, long, int)}).
+ * The findings of each template are modeled as a Poisson process with
+ * unknown rate and a Gamma prior. For every class, a rate is sampled from
+ * the posterior of each template and the template with the highest sample
+ * is generated (Thompson sampling).
+ * As long as no template produces any findings, this spends about the same
+ * time on each template (instead of generating each template equally
+ * often). Templates that produce findings receive more time in proportion
+ * to the confidence that their rate is higher.
+ */
+public class BanditScheduler implements TemplateScheduler {
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The number of findings of the prior.
+     */
+    private static final double PRIOR_FINDINGS = 1;
+
+    /**
+     * The time in seconds of the prior.
+     */
+    private static final double PRIOR_SECONDS = 1;
+
+    /**
+     * The prefix of all stored properties.
+     */
+    private static final String PREFIX = "bandit.";
+
+    /**
+     * The key of the stored seed.
+     */
+    private static final String SEED = PREFIX + "seed";
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Nested types
+
+    /**
+     * The accumulated cost and findings of a template.
+     */
+    private static final class Arm {
+        private long picks;
+        private double seconds;
+        private long findings;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The statistics of each template identified by its simple name.
+     */
+    private final Map<String, Arm> arms = new LinkedHashMap<>();
+
+    /**
+     * The seed of the posterior samples.
+     */
+    private long seed;
+
+    /**
+     * The source of the posterior samples.
+     */
+    private final Random random;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new bandit scheduler.
+     *
+     * @param seed The seed of the posterior samples
+     */
+    public BanditScheduler(long seed) {
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Creates a new bandit scheduler with a random seed.
+     *
+     * @see #BanditScheduler(long)
+     */
+    public BanditScheduler() {
+        this(new Random().nextLong());
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized Class<? extends Generative> next(List<Class<? extends Generative>> templates, long position) {
+        Class<? extends Generative> best = null;
+        double bestRate = -1;
+
+        for (Class<? extends Generative> template : templates) {
+            Arm arm = arm(template.getSimpleName());
+            double rate = sampleGamma(PRIOR_FINDINGS + arm.findings) / (PRIOR_SECONDS + arm.seconds);
+            if (rate > bestRate) {
+                best = template;
+                bestRate = rate;
+            }
+        }
+
+        assert best != null;
+        arm(best.getSimpleName()).picks++;
+        return best;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The cost should be the CPU time of the class, since wall-clock time
+     * grows with the number of concurrently tested classes and would
+     * penalize templates that happened to run under contention. Callers
+     * only pass wall-clock time for work that they cannot measure on
+     * their own thread (e.g. isolated workers or separate compiler
+     * threads).
+     */
+    @Override
+    public synchronized void record(String template, long nanos, int findings) {
+        Arm arm = arm(template);
+        arm.seconds += nanos / 1e9;
+        arm.findings += findings;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String describe() {
+        StringBuilder sb = new StringBuilder("bandit");
+        arms.forEach((template, arm) -> sb.append(String.format(
+                "%n%-20s picks=%-7d time=%8.1f s findings=%-5d %.4f findings/s",
+                template,
+                arm.picks,
+                arm.seconds,
+                arm.findings,
+                arm.seconds > 0 ? arm.findings / arm.seconds : 0
+        )));
+        return sb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void save(Properties state) {
+        state.setProperty(SEED, String.valueOf(seed));
+        arms.forEach((template, arm) -> {
+            state.setProperty(PREFIX + template + ".picks", String.valueOf(arm.picks));
+            state.setProperty(PREFIX + template + ".seconds", String.valueOf(arm.seconds));
+            state.setProperty(PREFIX + template + ".findings", String.valueOf(arm.findings));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The random source is reseeded with the stored seed and the number of
+     * picks so far, so the resumed campaign does not repeat the samples of
+     * the previous one.
+     */
+    @Override
+    public synchronized void restore(Properties state) {
+        String storedSeed = state.getProperty(SEED);
+        if (storedSeed == null)
+            return;
+
+        seed = Long.parseLong(storedSeed);
+
+        long picks = 0;
+        for (String key : state.stringPropertyNames()) {
+            if (!key.startsWith(PREFIX) || !key.endsWith(".picks"))
+                continue;
+
+            String template = key.substring(PREFIX.length(), key.length() - ".picks".length());
+            Arm arm = arm(template);
+            arm.picks = Long.parseLong(state.getProperty(key));
+            arm.seconds = Double.parseDouble(state.getProperty(PREFIX + template + ".seconds", "0"));
+            arm.findings = Long.parseLong(state.getProperty(PREFIX + template + ".findings", "0"));
+            picks += arm.picks;
+        }
+
+        random.setSeed(seed + picks);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * @param template The simple name of the template
+     * @return the (possibly new) statistics of the template
+     */
+    private Arm arm(String template) {
+        return arms.computeIfAbsent(template, t -> new Arm());
+    }
+
+    /**
+     * Draws a sample of a Gamma distribution with the given shape and unit
+     * scale (Marsaglia and Tsang).
+     *
+     * @param shape The shape, which must be positive
+     * @return the sample
+     */
+    private double sampleGamma(double shape) {
+        if (shape < 1)
+            // boost the shape and correct the sample afterwards
+            return sampleGamma(shape + 1) * Math.pow(random.nextDouble(), 1 / shape);
+
+        double d = shape - 1.0 / 3;
+        double c = 1 / Math.sqrt(9 * d);
+        while (true) {
+            double x = random.nextGaussian();
+            double v = 1 + c * x;
+            if (v <= 0)
+                continue;
+
+            v = v * v * v;
+            double u = random.nextDouble();
+            if (Math.log(u) < 0.5 * x * x + d - d * v + d * Math.log(v))
+                return d * v;
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
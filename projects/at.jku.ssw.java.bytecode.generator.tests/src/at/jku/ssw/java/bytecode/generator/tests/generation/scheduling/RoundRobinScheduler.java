@@ -0,0 +1,51 @@
+package at.jku.ssw.java.bytecode.generator.tests.generation.scheduling;
+
+import at.jku.ssw.java.bytecode.generator.tests.generation.classes.Generative;
+
+import java.util.List;
+
+/**
+ * {@link TemplateScheduler} that cycles through all templates, so each
+ * template is generated equally often regardless of its cost or findings.
+ * The repetition postfix counts the cycles.
+ */
+public class RoundRobinScheduler implements TemplateScheduler {
+
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<? extends Generative> next(List<Class<? extends Generative>> templates, long position) {
+        return templates.get((int) (position % templates.size()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int repetition(List<Class<? extends Generative>> templates, long position) {
+        return (int) (position / templates.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void record(String template, long nanos, int findings) {
+        // the schedule is fixed
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String describe() {
+        return "round-robin";
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
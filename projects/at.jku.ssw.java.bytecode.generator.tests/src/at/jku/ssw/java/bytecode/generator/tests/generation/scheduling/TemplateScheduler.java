@@ -0,0 +1,88 @@
+package at.jku.ssw.java.bytecode.generator.tests.generation.scheduling;
+
+import at.jku.ssw.java.bytecode.generator.tests.generation.classes.Generative;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Policy that decides which template is generated next.
+ * The generator asks the scheduler for the template of each position of
+ * its generation sequence. The cost of each generated class (generation
+ * and test time) and the findings it produced (e.g. mismatches) are fed
+ * back via {@link #record(String, long, int)}, which allows adaptive
+ * policies to spend more time on productive templates.
+ * Implementations must be thread-safe, since classes are generated and
+ * tested on different threads.
+ */
+public interface TemplateScheduler {
+    //-------------------------------------------------------------------------
+    // region Abstract methods
+
+    /**
+     * Selects the template of the given position of the generation
+     * sequence.
+     *
+     * @param templates The available templates
+     * @param position  The position within the generation sequence
+     * @return the template that is generated
+     */
+    Class<? extends Generative> next(List<Class<? extends Generative>> templates, long position);
+
+    /**
+     * Records the cost and the findings of a class of the given template.
+     * This may be called several times per class (e.g. once for the
+     * generation and once for the test).
+     *
+     * @param template The simple name of the template
+     * @param nanos    The time that was spent on the class (preferably the
+     *                 CPU time of the thread that handled it)
+     * @param findings The number of findings (e.g. mismatches) of the class
+     */
+    void record(String template, long nanos, int findings);
+
+    /**
+     * @return a description of the current schedule
+     */
+    String describe();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Default methods
+
+    /**
+     * Determines the repetition postfix of the class at the given position.
+     * The postfix must be unique per template and position. By default,
+     * the position itself is used, which also keeps names unique across
+     * the shards of a campaign.
+     *
+     * @param templates The available templates
+     * @param position  The position within the generation sequence
+     * @return the repetition that is appended to the class name
+     */
+    default int repetition(List<Class<? extends Generative>> templates, long position) {
+        return (int) position;
+    }
+
+    /**
+     * Stores the state of the scheduler (e.g. the statistics of adaptive
+     * policies) so that a resumed campaign continues with the same
+     * schedule. Stateless policies do not store anything.
+     *
+     * @param state The properties that receive the state
+     * @see #restore(Properties)
+     */
+    default void save(Properties state) {
+    }
+
+    /**
+     * Restores the state that was stored by {@link #save(Properties)}.
+     *
+     * @param state The properties that contain the state
+     */
+    default void restore(Properties state) {
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
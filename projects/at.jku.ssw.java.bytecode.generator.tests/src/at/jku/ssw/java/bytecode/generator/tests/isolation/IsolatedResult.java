@@ -0,0 +1,113 @@
+package at.jku.ssw.java.bytecode.generator.tests.isolation;
+
+import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
+
+/**
+ * The outcome of a class that was compiled (and executed) by an
+ * {@link IsolatedWorker}.
+ */
+public final class IsolatedResult {
+
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The result of the code that was compiled without profiling
+     * information (or {@code null} if the class was only compiled).
+     */
+    private final ExecutionResult compiled;
+
+    /**
+     * The result of the code that was compiled with profiling information
+     * (or {@code null} if the class was only compiled).
+     */
+    private final ExecutionResult optimized;
+
+    /**
+     * The median execution time of the compiled code if it was benchmarked.
+     */
+    private final long compiledTime;
+
+    /**
+     * The median execution time of the optimized code if it was benchmarked.
+     */
+    private final long optimizedTime;
+
+    /**
+     * The number of methods of the class that were stored as compile time
+     * outliers.
+     */
+    private final int outliers;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new result.
+     *
+     * @param compiled      The result of the compiled code
+     * @param optimized     The result of the optimized code
+     * @param compiledTime  The median execution time of the compiled code
+     * @param optimizedTime The median execution time of the optimized code
+     * @param outliers      The number of compile time outliers
+     */
+    IsolatedResult(ExecutionResult compiled,
+                   ExecutionResult optimized,
+                   long compiledTime,
+                   long optimizedTime,
+                   int outliers) {
+        this.compiled = compiled;
+        this.optimized = optimized;
+        this.compiledTime = compiledTime;
+        this.optimizedTime = optimizedTime;
+        this.outliers = outliers;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Getters
+
+    /**
+     * @return the result of the code that was compiled without profiling
+     * information
+     */
+    public ExecutionResult compiled() {
+        return compiled;
+    }
+
+    /**
+     * @return the result of the code that was compiled with profiling
+     * information
+     */
+    public ExecutionResult optimized() {
+        return optimized;
+    }
+
+    /**
+     * @return the median execution time of the compiled code in nanoseconds
+     * (or {@code 0} if it was not benchmarked)
+     */
+    public long compiledTime() {
+        return compiledTime;
+    }
+
+    /**
+     * @return the median execution time of the optimized code in
+     * nanoseconds (or {@code 0} if it was not benchmarked)
+     */
+    public long optimizedTime() {
+        return optimizedTime;
+    }
+
+    /**
+     * @return the number of methods that were stored as compile time
+     * outliers
+     */
+    public int outliers() {
+        return outliers;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,232 @@
+package at.jku.ssw.java.bytecode.generator.tests.isolation;
+
+import at.jku.ssw.java.bytecode.generator.tests.loading.InMemoryClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.logging.Logging;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.CodeCacheUsage;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.CompileTimeOutliers;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.ResourceUsage;
+import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
+import at.jku.ssw.java.bytecode.generator.tests.runtime.CompiledRunner;
+import at.jku.ssw.java.bytecode.generator.tests.runtime.OptimizedRunner;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import org.graalvm.compiler.hotspot.HotSpotGraalCompiler;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * The child side of a {@link WorkerPool}.
+ * It runs the compiled and optimized steps of the classes that the parent
+ * sends over a local socket and returns their results over the same socket
+ * (see {@link Protocol}). The worker stays alive (and warm) until the
+ * parent closes the connection, so a crash of the compiled code only takes
+ * down this process.
+ * The static field guard of the compiled run is verified by the optimized
+ * run within the worker.
+ * After each class, the worker samples its {@link ResourceUsage} and asks
+ * the parent to recycle it once a limit is exceeded.
+ */
+public class IsolatedWorker implements Logging {
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(IsolatedWorker.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The compiler runtime reference that should be used for compilation.
+     */
+    private final HotSpotJVMCIRuntime runtime;
+
+    /**
+     * The Graal compiler reference that is used for compilation.
+     */
+    private final HotSpotGraalCompiler compiler;
+
+    /**
+     * The number of interpreted runs before the optimized compilation.
+     */
+    private final int optimizationThreshold;
+
+    /**
+     * The executor that compiles the individual methods of a class.
+     */
+    private final Executor compilations;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new worker.
+     *
+     * @param runtime               The runtime reference
+     * @param compiler              The Graal compiler reference
+     * @param optimizationThreshold The number of interpreted runs before the
+     *                              optimized compilation
+     * @param compilations          The executor that compiles the individual
+     *                              methods of a class
+     */
+    public IsolatedWorker(HotSpotJVMCIRuntime runtime,
+                          HotSpotGraalCompiler compiler,
+                          int optimizationThreshold,
+                          Executor compilations) {
+        this.runtime = runtime;
+        this.compiler = compiler;
+        this.optimizationThreshold = optimizationThreshold;
+        this.compilations = compilations;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Connects to the parent and serves its requests until it closes the
+     * connection.
+     *
+     * @param port The local port of the parent
+     * @throws IOException if the parent cannot be reached
+     */
+    public void serve(int port) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            serve(
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                    new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+            );
+        }
+    }
+
+    /**
+     * Serves the requests that are read from the given stream until it
+     * ends.
+     *
+     * @param in  The stream of requests
+     * @param out The stream that receives the responses
+     * @throws IOException if the parent cannot be reached
+     */
+    private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+
+        // the classes are only kept as long as they are tested
+        InMemoryClassSource classes = new InMemoryClassSource(Paths.get("."));
+
+        out.writeInt(Protocol.MAGIC);
+        out.flush();
+        info("Isolated worker ready");
+
+        while (true) {
+            byte request;
+            try {
+                request = in.readByte();
+            } catch (EOFException e) {
+                // the parent closed the connection
+                break;
+            }
+
+            String className = Protocol.readString(in);
+            classes.put(className, Protocol.readBytes(in));
+            try {
+                handle(request, className, classes, out);
+            } finally {
+                classes.release(className);
+                CodeCacheUsage.release(className);
+            }
+            Protocol.writeString(out, ResourceUsage.exceeded());
+            out.flush();
+        }
+
+        info("Isolated worker finished");
+    }
+
+    /**
+     * Runs a single request and writes the response.
+     *
+     * @param request   The request type
+     * @param className The name of the class
+     * @param classes   The source that contains the class
+     * @param out       The stream that receives the response
+     * @throws IOException if the response cannot be written
+     */
+    private void handle(byte request,
+                        String className,
+                        InMemoryClassSource classes,
+                        DataOutputStream out) throws IOException {
+
+        ExecutionResult compiled = null;
+        ExecutionResult optimized = null;
+        long compiledTime = 0;
+        long optimizedTime = 0;
+
+        try {
+            CompiledRunner compiledRunner = new CompiledRunner(
+                    classes,
+                    null,
+                    runtime,
+                    compiler,
+                    compilations
+            );
+
+            if (request == Protocol.COMPILE) {
+                compiledRunner.compileOnly(className);
+            } else {
+                compiled = compiledRunner.call(className);
+
+                OptimizedRunner optimizer = new OptimizedRunner(
+                        classes,
+                        compiledRunner.guard(),
+                        runtime,
+                        compiler,
+                        optimizationThreshold,
+                        compilations
+                );
+                optimized = optimizer.call(className);
+
+                compiledTime = compiledRunner.executionTime();
+                optimizedTime = optimizer.executionTime();
+            }
+        } catch (Exception | LinkageError e) {
+            fail(e, "%s : Isolated execution failed", className);
+
+            StringWriter trace = new StringWriter();
+            e.printStackTrace(new PrintWriter(trace));
+            out.writeByte(Protocol.FAILED);
+            Protocol.writeString(out, trace.toString());
+            return;
+        }
+
+        out.writeByte(Protocol.OK);
+        out.writeInt(CompileTimeOutliers.collect(className));
+        if (request == Protocol.TEST) {
+            Protocol.writeResult(out, compiled);
+            Protocol.writeResult(out, optimized);
+            out.writeLong(compiledTime);
+            out.writeLong(optimizedTime);
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Logger logger() {
+        return logger;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,174 @@
+package at.jku.ssw.java.bytecode.generator.tests.isolation;
+
+import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary protocol between a {@link WorkerPool} and its
+ * {@link IsolatedWorker} processes.
+ * The messages are exchanged over a local socket that the worker connects
+ * to once it is initialized, upon which it writes {@link #MAGIC}.
+ * Afterwards, the parent sends requests that consist of the request type
+ * ({@link #TEST} or {@link #COMPILE}), the class name and the class file.
+ * The worker answers each request with {@link #OK} followed by the
+ * number of compile time outliers and (for tests) the compiled and optimized
+ * results and their benchmarked execution times, or with {@link #FAILED}
+ * followed by the stack trace of the failure. Each response ends with
+ * the (optional) reason why the worker should be recycled.
+ * Closing the connection terminates the worker.
+ */
+final class Protocol {
+    private Protocol() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The marker that a worker writes once it is ready.
+     */
+    static final int MAGIC = 0x4A424754;
+
+    /**
+     * Request that compiles, runs and optimizes a class.
+     */
+    static final byte TEST = 0;
+
+    /**
+     * Request that only compiles a class.
+     */
+    static final byte COMPILE = 1;
+
+    /**
+     * Response status of successful requests.
+     */
+    static final byte OK = 0;
+
+    /**
+     * Response status of requests that failed with an exception.
+     */
+    static final byte FAILED = 1;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Encoding
+
+    /**
+     * Writes a length-prefixed byte array.
+     *
+     * @param out   The target stream
+     * @param bytes The bytes
+     * @throws IOException if the stream cannot be written
+     */
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes a (possibly {@code null}) string.
+     *
+     * @param out The target stream
+     * @param s   The string
+     * @throws IOException if the stream cannot be written
+     */
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null)
+            writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the given execution result.
+     * The return value of the executed {@code main} method is always
+     * {@code null} and therefore not transferred. Exceptions are described
+     * by their type and message.
+     *
+     * @param out    The target stream
+     * @param result The execution result
+     * @throws IOException if the stream cannot be written
+     */
+    static void writeResult(DataOutputStream out, ExecutionResult result) throws IOException {
+        writeBytes(out, result.rawOutput());
+        writeString(out, result.exception() == null ? null : result.exception().getClass().getName());
+        writeString(out, result.exception() == null ? null : result.exception().getMessage());
+        out.writeLong(result.duration());
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Decoding
+
+    /**
+     * @param in The source stream
+     * @return the length-prefixed byte array
+     * @throws IOException if the stream cannot be read
+     */
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException("Invalid length " + length);
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * @param in The source stream
+     * @return the (possibly {@code null}) string
+     * @throws IOException if the stream cannot be read
+     */
+    static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new String(readBytes(in), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Reads an execution result that was written by
+     * {@link #writeResult(DataOutputStream, ExecutionResult)}.
+     *
+     * @param in The source stream
+     * @return the execution result
+     * @throws IOException if the stream cannot be read
+     */
+    static ExecutionResult readResult(DataInputStream in) throws IOException {
+        byte[] output = readBytes(in);
+        String exceptionType = readString(in);
+        String exceptionMessage = readString(in);
+        long duration = in.readLong();
+
+        return new ExecutionResult(
+                null,
+                output,
+                null,
+                0,
+                exceptionType == null ? null : exception(exceptionType, exceptionMessage),
+                duration
+        );
+    }
+
+    /**
+     * Recreates an exception of the given type.
+     *
+     * @param type    The name of the exception type
+     * @param message The message of the exception
+     * @return an exception of the given type (or a {@link RuntimeException}
+     * that describes it if the type cannot be instantiated)
+     */
+    private static Throwable exception(String type, String message) {
+        try {
+            return (Throwable) Class.forName(type)
+                    .getConstructor(String.class)
+                    .newInstance(message);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            return new RuntimeException(type + ": " + message);
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,47 @@
+package at.jku.ssw.java.bytecode.generator.tests.isolation;
+
+import java.io.IOException;
+
+/**
+ * Signals that an isolated worker process died while it tested a class.
+ * The class was stored as crash reproducer and the worker was replaced.
+ */
+public class WorkerCrashException extends IOException {
+
+    /**
+     * The name of the class that killed the worker.
+     */
+    private final String className;
+
+    /**
+     * The exit code of the worker process.
+     */
+    private final int exitCode;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param className The name of the class that killed the worker
+     * @param exitCode  The exit code of the worker process
+     * @param cause     The error that revealed the crash
+     */
+    public WorkerCrashException(String className, int exitCode, Throwable cause) {
+        super("Worker crashed (exit code " + exitCode + ") while testing " + className, cause);
+        this.className = className;
+        this.exitCode = exitCode;
+    }
+
+    /**
+     * @return the name of the class that killed the worker
+     */
+    public String className() {
+        return className;
+    }
+
+    /**
+     * @return the exit code of the worker process
+     */
+    public int exitCode() {
+        return exitCode;
+    }
+}
@@ -0,0 +1,310 @@
+package at.jku.ssw.java.bytecode.generator.tests.isolation;
+
+import at.jku.ssw.java.bytecode.generator.tests.logging.Logging;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+/**
+ * A fixed-size pool of long-lived {@link IsolatedWorker} processes that
+ * run the compiled and optimized steps of a test, so that a crashing
+ * compilation or corrupted heap does not take down the campaign.
+ * Each request is handled by the next idle worker. A worker that dies
+ * is replaced immediately and the class that killed it is stored in the
+ * crash directory as a reproducer. If the replacement cannot be started,
+ * it is started again once its slot handles the next request. Workers
+ * that exceed their
+ * {@link at.jku.ssw.java.bytecode.generator.tests.metrics.ResourceUsage}
+ * limits are recycled after their current class.
+ * The workers also exit on their own once this process terminates.
+ * It is safe to be shared between concurrent testers.
+ */
+public final class WorkerPool implements Closeable, Logging {
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(WorkerPool.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The prefixes of JVM arguments that are not passed on to the workers
+     * (since the debugger port cannot be shared).
+     */
+    private static final List<String> EXCLUDED_VM_ARGS = Arrays.asList("-agentlib:jdwp", "-Xrunjdwp");
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The command that starts a worker.
+     */
+    private final List<String> command;
+
+    /**
+     * The directory where classes that crashed a worker are stored.
+     */
+    private final Path crashDirectory;
+
+    /**
+     * The indices of the workers that currently do not process any class.
+     */
+    private final BlockingQueue<Integer> idle;
+
+    /**
+     * The workers by their index (or {@code null} if the worker of a slot
+     * is not running).
+     * Each slot is only accessed by the thread that took it from the
+     * {@link #idle} queue.
+     */
+    private final AtomicReferenceArray<WorkerProcess> workers;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Starts the given number of workers and waits until they are ready.
+     *
+     * @param size           The number of worker processes
+     * @param crashDirectory The directory where classes that crashed a
+     *                       worker are stored
+     * @param command        The command that starts a worker (followed by
+     *                       the port that the worker connects to)
+     * @throws IOException if a worker cannot be started
+     * @see #command(Class, List)
+     */
+    public WorkerPool(int size, Path crashDirectory, List<String> command) throws IOException {
+        if (size <= 0)
+            throw new IllegalArgumentException("The number of isolated workers must be greater than 0");
+
+        Files.createDirectories(crashDirectory);
+        this.command = command;
+        this.crashDirectory = crashDirectory;
+        this.idle = new ArrayBlockingQueue<>(size);
+        this.workers = new AtomicReferenceArray<>(size);
+
+        for (int i = 0; i < size; i++) {
+            workers.set(i, new WorkerProcess(i, command));
+            idle.add(i);
+        }
+
+        info("Started %d isolated worker(s)", size);
+    }
+
+    /**
+     * Builds the command that runs the given main class in a new JVM with
+     * the same JVM arguments and class path as this process.
+     *
+     * @param mainClass The main class of the worker
+     * @param args      The program arguments
+     * @return the command line
+     */
+    public static List<String> command(Class<?> mainClass, List<String> args) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(a -> EXCLUDED_VM_ARGS.stream().noneMatch(a::startsWith))
+                .forEach(command::add);
+
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(args);
+
+        return command;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Compiles, runs and optimizes the given class in a worker.
+     *
+     * @param className The name of the class
+     * @param classFile The contents of the class file
+     * @return the compiled and optimized results
+     * @throws WorkerCrashException if the worker died
+     * @throws ExecutionException   if the class failed within the worker
+     * @throws Exception            if the pool cannot process the class
+     */
+    public IsolatedResult test(String className, byte[] classFile) throws Exception {
+        return run(Protocol.TEST, className, classFile);
+    }
+
+    /**
+     * Only compiles the given class in a worker.
+     *
+     * @param className The name of the class
+     * @param classFile The contents of the class file
+     * @return the result, which only describes the compile time outliers
+     * @throws WorkerCrashException if the worker died
+     * @throws ExecutionException   if the class failed within the worker
+     * @throws Exception            if the pool cannot process the class
+     */
+    public IsolatedResult compile(String className, byte[] classFile) throws Exception {
+        return run(Protocol.COMPILE, className, classFile);
+    }
+
+    /**
+     * Lets the next idle worker process the given request.
+     *
+     * @param request   The request type
+     * @param className The name of the class
+     * @param classFile The contents of the class file
+     * @return the result of the worker
+     * @throws Exception if the worker fails or dies
+     */
+    private IsolatedResult run(byte request, String className, byte[] classFile) throws Exception {
+        final int id = idle.take();
+        try {
+            // the worker of this slot could not be replaced before
+            WorkerProcess worker = workers.get(id);
+            if (worker == null) {
+                worker = new WorkerProcess(id, command);
+                workers.set(id, worker);
+            }
+
+            IsolatedResult result;
+            try {
+                result = worker.run(request, className, classFile);
+            } catch (IOException e) {
+                // the worker died (or wrote something else than the protocol)
+                workers.set(id, null);
+                int exitCode = worker.terminate();
+
+                fail("%s : Isolated worker %d crashed with exit code %d", className, id, exitCode);
+                Metrics.workerCrashed();
+                storeCrash(className, classFile, id, exitCode);
+
+                replace(id);
+                throw new WorkerCrashException(className, exitCode, e);
+            } catch (ExecutionException e) {
+                if (worker.exhausted() != null)
+                    recycle(worker);
+                throw e;
+            }
+
+            if (worker.exhausted() != null)
+                recycle(worker);
+
+            return result;
+        } finally {
+            idle.put(id);
+        }
+    }
+
+    /**
+     * Gracefully terminates the given worker and replaces it.
+     *
+     * @param worker The worker that exceeded its resource limits
+     */
+    private void recycle(WorkerProcess worker) {
+        info("Recycling isolated worker %d - %s", worker.id(), worker.exhausted());
+        workers.set(worker.id(), null);
+        Metrics.workerRecycled();
+
+        try {
+            worker.close();
+        } catch (IOException e) {
+            logger.warning(String.format("Isolated worker %d could not be terminated: %s", worker.id(), e));
+        }
+
+        replace(worker.id());
+    }
+
+    /**
+     * Starts the replacement of a terminated worker. If it cannot be
+     * started, the slot stays empty until it is used next.
+     *
+     * @param id The index of the worker
+     */
+    private void replace(int id) {
+        try {
+            workers.set(id, new WorkerProcess(id, command));
+        } catch (IOException e) {
+            logger.warning(String.format("Isolated worker %d could not be replaced, retrying with the next class: %s", id, e));
+        }
+    }
+
+    /**
+     * Stores the class that crashed a worker as {@code <class>.class} and
+     * describes the crash in {@code <class>.txt}.
+     *
+     * @param className The name of the class
+     * @param classFile The contents of the class file
+     * @param id        The index of the worker
+     * @param exitCode  The exit code of the worker
+     * @throws IOException if the files cannot be written
+     */
+    private void storeCrash(String className, byte[] classFile, int id, int exitCode) throws IOException {
+        Files.write(crashDirectory.resolve(className + ".class"), classFile);
+        Files.write(
+                crashDirectory.resolve(className + ".txt"),
+                ("Isolated worker " + id + " exited with code " + exitCode + System.lineSeparator())
+                        .getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * Terminates all workers.
+     *
+     * @throws IOException if a worker cannot be terminated
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (int i = 0; i < workers.length(); i++) {
+            WorkerProcess worker = workers.getAndSet(i, null);
+            if (worker == null)
+                continue;
+
+            try {
+                worker.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        if (error != null)
+            throw error;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Logger logger() {
+        return logger;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,260 @@
+package at.jku.ssw.java.bytecode.generator.tests.isolation;
+
+import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The parent side of a single {@link IsolatedWorker} process.
+ * The requests and responses are exchanged over a local socket that the
+ * worker connects to, so that anything the worker's JVM prints to its
+ * STDOUT (e.g. due to {@code -Xlog} or {@code -XX:+PrintCompilation})
+ * cannot corrupt the protocol.
+ * It is not thread-safe, since each process only handles one request at a
+ * time.
+ */
+final class WorkerProcess implements Closeable {
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The time in seconds that a terminating process is given to exit
+     * before it is killed.
+     */
+    private static final long EXIT_TIMEOUT = 10;
+
+    /**
+     * The time in seconds that a new process is given to connect to its
+     * parent.
+     */
+    private static final long CONNECT_TIMEOUT = 120;
+
+    /**
+     * The interval in milliseconds in which a connecting process is
+     * checked for liveness.
+     */
+    private static final int CONNECT_POLL = 500;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The index of the worker within its pool.
+     */
+    private final int id;
+
+    /**
+     * The worker process.
+     */
+    private final Process process;
+
+    /**
+     * The connection to the worker.
+     */
+    private final Socket socket;
+
+    /**
+     * The stream that sends requests to the worker.
+     */
+    private final DataOutputStream requests;
+
+    /**
+     * The stream that receives the responses of the worker.
+     */
+    private final DataInputStream responses;
+
+    /**
+     * The reason why the worker should be recycled
+     * (or {@code null} if it is still usable).
+     */
+    private String exhausted;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Starts a new worker process and waits until it is connected and
+     * ready. The port that the worker connects to is appended to the
+     * given command. The worker logs to the STDOUT and STDERR of this
+     * process.
+     *
+     * @param id      The index of the worker within its pool
+     * @param command The command that starts the worker
+     * @throws IOException if the worker cannot be started
+     */
+    WorkerProcess(int id, List<String> command) throws IOException {
+        this.id = id;
+
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            List<String> cmd = new ArrayList<>(command);
+            cmd.add(String.valueOf(server.getLocalPort()));
+
+            this.process = new ProcessBuilder(cmd)
+                    .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+
+            try {
+                this.socket = accept(server);
+                this.requests = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                this.responses = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+                if (responses.readInt() != Protocol.MAGIC)
+                    throw new IOException("Unexpected handshake of worker " + id);
+            } catch (IOException e) {
+                process.destroyForcibly();
+                throw new IOException("Worker " + id + " could not be started", e);
+            }
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * @return the index of the worker within its pool
+     */
+    int id() {
+        return id;
+    }
+
+    /**
+     * @return the reason why the worker asked to be recycled after its last
+     * response (or {@code null} if it is still usable)
+     */
+    String exhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Lets the worker process the given class.
+     *
+     * @param request   The request type ({@link Protocol#TEST} or
+     *                  {@link Protocol#COMPILE})
+     * @param className The name of the class
+     * @param classFile The contents of the class file
+     * @return the result of the class
+     * @throws ExecutionException if the class failed within the worker
+     *                            (which is still usable)
+     * @throws IOException        if the worker died or its response is
+     *                            corrupt
+     */
+    IsolatedResult run(byte request, String className, byte[] classFile)
+            throws ExecutionException, IOException {
+
+        requests.writeByte(request);
+        Protocol.writeString(requests, className);
+        Protocol.writeBytes(requests, classFile);
+        requests.flush();
+
+        byte status = responses.readByte();
+        if (status == Protocol.FAILED) {
+            String trace = Protocol.readString(responses);
+            exhausted = Protocol.readString(responses);
+            throw new ExecutionException(
+                    className + " failed in isolated worker " + id + ":\n" + trace,
+                    null
+            );
+        }
+        if (status != Protocol.OK)
+            throw new IOException("Corrupt response of worker " + id);
+
+        int outliers = responses.readInt();
+        IsolatedResult result;
+        if (request == Protocol.COMPILE) {
+            result = new IsolatedResult(null, null, 0, 0, outliers);
+        } else {
+            ExecutionResult compiled = Protocol.readResult(responses);
+            ExecutionResult optimized = Protocol.readResult(responses);
+
+            result = new IsolatedResult(
+                    compiled,
+                    optimized,
+                    responses.readLong(),
+                    responses.readLong(),
+                    outliers
+            );
+        }
+
+        exhausted = Protocol.readString(responses);
+        return result;
+    }
+
+    /**
+     * Waits for the (dying) worker to exit and kills it if it does not.
+     *
+     * @return the exit code of the worker
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    int terminate() throws InterruptedException {
+        if (!process.waitFor(EXIT_TIMEOUT, TimeUnit.SECONDS))
+            process.destroyForcibly();
+
+        return process.waitFor();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * Waits until the started process connects to the given server socket.
+     *
+     * @param server The socket whose port was passed to the process
+     * @return the connection to the process
+     * @throws IOException if the process exits or does not connect in time
+     */
+    private Socket accept(ServerSocket server) throws IOException {
+        server.setSoTimeout(CONNECT_POLL);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CONNECT_TIMEOUT);
+
+        while (true) {
+            try {
+                return server.accept();
+            } catch (SocketTimeoutException e) {
+                if (!process.isAlive())
+                    throw new IOException("Worker " + id + " exited with code " + process.exitValue());
+                if (System.nanoTime() - deadline > 0)
+                    throw new IOException("Worker " + id + " did not connect within " + CONNECT_TIMEOUT + " s");
+            }
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * Closes the connection to the worker, which lets it exit gracefully.
+     *
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            socket.close();
+        } finally {
+            try {
+                terminate();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,60 @@
+package at.jku.ssw.java.bytecode.generator.tests.loading;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Describes where the classes under test are loaded from.
+ * Each runner creates a fresh class loader per run via
+ * {@link #newLoader()} to reset any static state.
+ */
+public interface ClassSource {
+    //-------------------------------------------------------------------------
+    // region Abstract methods
+
+    /**
+     * @return the directory where class files and outputs are stored
+     */
+    Path workingDirectory();
+
+    /**
+     * Creates a new class loader that loads the classes of this source.
+     *
+     * @return a new class loader instance
+     */
+    ClassLoader newLoader();
+
+    /**
+     * @return {@code true} if the classes already reside in the working
+     * directory; {@code false} if they are only kept in memory
+     */
+    boolean isPersistent();
+
+    /**
+     * Retrieves the contents of the class file of the given class.
+     *
+     * @param className The name of the class
+     * @return the bytes of the class file
+     * @throws IOException if the class file cannot be read
+     */
+    byte[] bytes(String className) throws IOException;
+
+    /**
+     * Ensures that the class file of the given class is stored in the
+     * working directory (e.g. to keep a mismatching class).
+     *
+     * @param className The name of the class
+     * @throws IOException if the class file cannot be written
+     */
+    void persist(String className) throws IOException;
+
+    /**
+     * Signals that the given class is no longer used.
+     *
+     * @param className The name of the class
+     */
+    void release(String className);
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
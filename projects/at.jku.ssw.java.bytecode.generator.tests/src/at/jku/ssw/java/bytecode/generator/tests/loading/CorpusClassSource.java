@@ -0,0 +1,355 @@
+package at.jku.ssw.java.bytecode.generator.tests.loading;
+
+import at.jku.ssw.java.bytecode.generator.tests.logging.Logging;
+import at.jku.ssw.java.bytecode.generator.tests.utils.ClassFiles;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link ClassSource} over a corpus of existing class files.
+ * The corpus is described by a list of locations, each of which is either
+ * <ul>
+ * <li>a class file (with or without the {@code .class} extension),</li>
+ * <li>a directory that is searched recursively for class files,</li>
+ * <li>a jar or zip archive (which is memory-mapped) or</li>
+ * <li>a glob pattern that matches any of the above.</li>
+ * </ul>
+ * Class names within directories are derived from the path relative to
+ * the given directory, so packages are supported. The names of individual
+ * class files (and those that match a glob pattern) are read from the class
+ * files themselves.
+ * The classes are read lazily and only mismatching classes (and their
+ * outputs) are written to the working directory.
+ */
+public class CorpusClassSource implements ClassSource, Logging {
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(CorpusClassSource.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The characters that mark a location as glob pattern.
+     */
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Nested types
+
+    /**
+     * Describes where the contents of a class file are read from.
+     */
+    @FunctionalInterface
+    private interface Location {
+        /**
+         * @return the contents of the class file
+         * @throws IOException if the class file cannot be read
+         */
+        byte[] read() throws IOException;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The directory where mismatching classes and outputs are written to.
+     */
+    private final Path workingDirectory;
+
+    /**
+     * The locations of all classes of the corpus identified by their names
+     * (in the order in which they were found).
+     */
+    private final Map<String, Location> classes = new LinkedHashMap<>();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Resolves the given locations to a corpus.
+     *
+     * @param workingDirectory The directory where mismatching classes and
+     *                         outputs are written to
+     * @param locations        The class files, directories, archives or glob
+     *                         patterns that form the corpus
+     * @throws IOException if a location cannot be read
+     */
+    public CorpusClassSource(Path workingDirectory, String... locations) throws IOException {
+        this.workingDirectory = workingDirectory;
+
+        for (String location : locations)
+            add(location);
+
+        info("Corpus contains %d class(es)", classes.size());
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Selects a disjoint slice of the corpus.
+     *
+     * @param shard  The index of the slice (starting at 0)
+     * @param shards The total number of slices
+     * @param skip   The number of leading classes of the slice that are
+     *               skipped
+     * @return the names of the classes of the slice
+     */
+    public List<String> classNames(int shard, int shards, int skip) {
+        if (shards <= 0 || shard < 0 || shard >= shards)
+            throw new IllegalArgumentException("Invalid shard " + shard + "/" + shards);
+        if (skip < 0)
+            throw new IllegalArgumentException("The number of skipped classes must at least be 0");
+
+        List<String> names = new ArrayList<>();
+        int i = 0;
+        for (String name : classes.keySet())
+            if (i++ % shards == shard)
+                names.add(name);
+
+        return names.subList(Math.min(skip, names.size()), names.size());
+    }
+
+    /**
+     * Adds the classes that the given location describes.
+     *
+     * @param location A class file, directory, archive or glob pattern
+     * @throws IOException if the location cannot be read
+     */
+    private void add(String location) throws IOException {
+        if (location.chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0)) {
+            addGlob(location);
+            return;
+        }
+
+        Path path = Paths.get(location);
+        if (Files.isDirectory(path)) {
+            addDirectory(path, path);
+        } else if (isArchive(path)) {
+            addArchive(path);
+        } else {
+            // the extension may be omitted
+            if (!location.endsWith(".class"))
+                path = Paths.get(location + ".class");
+
+            if (!Files.isRegularFile(path))
+                throw new NoSuchFileException(location);
+
+            addClassFile(path);
+        }
+    }
+
+    /**
+     * Adds all class files and archives that match the given glob pattern.
+     *
+     * @param pattern The glob pattern
+     * @throws IOException if the matching files cannot be read
+     */
+    private void addGlob(String pattern) throws IOException {
+        // walk the longest prefix that does not contain any glob characters
+        Path base = Paths.get(".");
+        Path prefix = Paths.get(pattern);
+        for (Path part : prefix) {
+            if (part.toString().chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0))
+                break;
+            base = base.resolve(part);
+        }
+        if (prefix.isAbsolute())
+            base = prefix.getRoot().resolve(base.normalize());
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+        List<Path> matches;
+        try (Stream<Path> files = Files.walk(base.normalize())) {
+            matches = files
+                    .filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(prefix.isAbsolute() ? p.toAbsolutePath() : p.normalize()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        if (matches.isEmpty())
+            logger.warning("No class files match " + pattern);
+
+        for (Path p : matches) {
+            if (isArchive(p))
+                addArchive(p);
+            else if (p.toString().endsWith(".class"))
+                addClassFile(p);
+        }
+    }
+
+    /**
+     * Adds all class files and archives within the given directory tree.
+     *
+     * @param root      The directory that class names are relative to
+     * @param directory The directory that is searched
+     * @throws IOException if the directory cannot be read
+     */
+    private void addDirectory(Path root, Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        for (Path p : files) {
+            if (isArchive(p))
+                addArchive(p);
+            else if (p.toString().endsWith(".class"))
+                addClassFile(root, p);
+        }
+    }
+
+    /**
+     * Adds all classes of the given archive.
+     *
+     * @param file The jar or zip file
+     * @throws IOException if the archive cannot be read
+     */
+    private void addArchive(Path file) throws IOException {
+        MappedArchive archive = new MappedArchive(file);
+        for (String name : archive.classNames())
+            addClass(name, () -> archive.read(name));
+    }
+
+    /**
+     * Adds a single class file.
+     *
+     * @param root The directory that the class name is relative to
+     * @param file The class file
+     */
+    private void addClassFile(Path root, Path file) {
+        String relative = root.toAbsolutePath().normalize()
+                .relativize(file.toAbsolutePath().normalize())
+                .toString();
+        String name = relative
+                .substring(0, relative.length() - ".class".length())
+                .replace(file.getFileSystem().getSeparator(), ".");
+
+        addClass(name, () -> Files.readAllBytes(file));
+    }
+
+    /**
+     * Adds a single class file whose name is read from the class file.
+     *
+     * @param file The class file
+     * @throws IOException if the class file cannot be read
+     */
+    private void addClassFile(Path file) throws IOException {
+        addClass(ClassFiles.nameOf(Files.readAllBytes(file)), () -> Files.readAllBytes(file));
+    }
+
+    /**
+     * Registers a class unless another class of the same name is already
+     * part of the corpus.
+     *
+     * @param name     The name of the class
+     * @param location Where the class file is read from
+     */
+    private void addClass(String name, Location location) {
+        if (classes.putIfAbsent(name, location) != null)
+            logger.warning("Ignoring duplicate class " + name);
+    }
+
+    /**
+     * @param file The file
+     * @return {@code true} if the file is a jar or zip archive
+     */
+    private static boolean isArchive(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".jar") || name.endsWith(".zip");
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Path workingDirectory() {
+        return workingDirectory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ClassLoader newLoader() {
+        return new InMemoryClassLoader(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isPersistent() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] bytes(String className) throws IOException {
+        Location location = classes.get(className);
+        if (location == null)
+            throw new IOException("Unknown class " + className);
+
+        return location.read();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(String className) throws IOException {
+        byte[] bytes = bytes(className);
+
+        Path file = workingDirectory.resolve(className.replace('.', '/') + ".class");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, bytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(String className) {
+        // the corpus is read lazily, therefore nothing is kept
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Logger logger() {
+        return logger;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
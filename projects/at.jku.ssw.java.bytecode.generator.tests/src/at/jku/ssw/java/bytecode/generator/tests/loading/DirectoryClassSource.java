@@ -0,0 +1,89 @@
+package at.jku.ssw.java.bytecode.generator.tests.loading;
+
+import at.jku.ssw.java.bytecode.generator.loaders.GeneratedClassLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link ClassSource} that loads class files from a directory.
+ */
+public class DirectoryClassSource implements ClassSource {
+
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The directory that contains the class files.
+     */
+    private final Path workingDirectory;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new source for the given directory.
+     *
+     * @param workingDirectory The directory that contains the class files
+     */
+    public DirectoryClassSource(Path workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Path workingDirectory() {
+        return workingDirectory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ClassLoader newLoader() {
+        return new GeneratedClassLoader(workingDirectory.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] bytes(String className) throws IOException {
+        return Files.readAllBytes(workingDirectory.resolve(className.replace('.', '/') + ".class"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(String className) {
+        // the class file already exists
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(String className) {
+        // nothing to release
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,55 @@
+package at.jku.ssw.java.bytecode.generator.tests.loading;
+
+import java.io.IOException;
+
+/**
+ * Class loader that defines classes directly from the class file bytes
+ * of a {@link ClassSource}.
+ * All other classes are delegated to the parent class loader.
+ */
+public class InMemoryClassLoader extends ClassLoader {
+
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The source that supplies the class file contents.
+     */
+    private final ClassSource classes;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new class loader for the given classes.
+     *
+     * @param classes The source that supplies the class file contents
+     */
+    public InMemoryClassLoader(ClassSource classes) {
+        super(InMemoryClassLoader.class.getClassLoader());
+        this.classes = classes;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes;
+        try {
+            bytes = classes.bytes(name);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
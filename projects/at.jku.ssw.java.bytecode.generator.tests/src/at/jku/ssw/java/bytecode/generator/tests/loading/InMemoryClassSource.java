@@ -0,0 +1,130 @@
+package at.jku.ssw.java.bytecode.generator.tests.loading;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link ClassSource} that keeps the class files in memory and only writes
+ * them to the working directory on request.
+ * It is safe to be shared between concurrent workers.
+ */
+public class InMemoryClassSource implements ClassSource {
+
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The directory where persisted class files are written to.
+     */
+    private final Path workingDirectory;
+
+    /**
+     * The bytes of all available classes identified by their names.
+     */
+    private final ConcurrentMap<String, byte[]> classes = new ConcurrentHashMap<>();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new, empty in-memory source.
+     *
+     * @param workingDirectory The directory where persisted class files
+     *                         are written to
+     */
+    public InMemoryClassSource(Path workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Adds a class to this source.
+     *
+     * @param className The name of the class
+     * @param bytes     The content of the class file
+     */
+    public void put(String className, byte[] bytes) {
+        classes.put(className, bytes);
+    }
+
+    /**
+     * Looks up the bytes of the given class.
+     *
+     * @param className The name of the class
+     * @return the content of the class file or {@code null} if the class
+     * is unknown
+     */
+    public byte[] get(String className) {
+        return classes.get(className);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Path workingDirectory() {
+        return workingDirectory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ClassLoader newLoader() {
+        return new InMemoryClassLoader(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isPersistent() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] bytes(String className) throws IOException {
+        byte[] bytes = classes.get(className);
+        if (bytes == null)
+            throw new IOException("Unknown class " + className);
+
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void persist(String className) throws IOException {
+        byte[] bytes = bytes(className);
+
+        Path file = workingDirectory.resolve(className.replace('.', '/') + ".class");
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(String className) {
+        classes.remove(className);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,292 @@
+package at.jku.ssw.java.bytecode.generator.tests.loading;
+
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Tracks the class loaders that were replaced by a runner until they are
+ * collected (and their classes unloaded).
+ * Instead of forcing a garbage collection whenever a loader is replaced,
+ * a collection is only requested once the metaspace or the number of
+ * loaded classes grew by more than the configured budget since the last
+ * forced collection. Loaders that survive several forced collections are
+ * reported as leaks, since some object still references their classes.
+ */
+public final class LoaderTracker {
+    private LoaderTracker() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(LoaderTracker.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The default growth of the metaspace in bytes after which a
+     * collection is forced.
+     */
+    public static final long DEFAULT_METASPACE_BUDGET = 64L * 1024 * 1024;
+
+    /**
+     * The default number of additionally loaded classes after which a
+     * collection is forced.
+     */
+    public static final int DEFAULT_CLASS_BUDGET = 5000;
+
+    /**
+     * The number of forced collections that a retired loader may survive
+     * before it is reported as leak.
+     * The first collection after the retirement does not count, since
+     * the runner may still hold on to the loaded class.
+     */
+    private static final int LEAK_COLLECTIONS = 3;
+
+    /**
+     * The time in milliseconds that is waited for pending references
+     * before a loader is reported as leak (since references are enqueued
+     * asynchronously after the collection).
+     */
+    private static final long ENQUEUE_TIMEOUT = 100;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Nested types
+
+    /**
+     * Phantom reference to a retired class loader.
+     */
+    private static final class Retired extends PhantomReference<ClassLoader> {
+
+        /**
+         * The name of the class that was last loaded by the loader.
+         */
+        private final String className;
+
+        /**
+         * The number of forced collections at the time of the retirement.
+         */
+        private final long collection;
+
+        /**
+         * The time of the retirement.
+         */
+        private final long time = System.nanoTime();
+
+        /**
+         * Creates a new reference.
+         *
+         * @param loader    The retired loader
+         * @param className The name of the class that was last loaded by
+         *                  the loader
+         */
+        private Retired(ClassLoader loader, String className) {
+            super(loader, queue);
+            this.className = className;
+            this.collection = collections;
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The queue that receives the references of collected loaders.
+     */
+    private static final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<>();
+
+    /**
+     * The references of the loaders that were not collected yet.
+     * The set keeps the references themselves reachable.
+     */
+    private static final Set<Retired> retired = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The metaspace growth in bytes after which a collection is forced.
+     */
+    private static volatile long metaspaceBudget = DEFAULT_METASPACE_BUDGET;
+
+    /**
+     * The number of additionally loaded classes after which a collection
+     * is forced.
+     */
+    private static volatile int classBudget = DEFAULT_CLASS_BUDGET;
+
+    /**
+     * The number of forced collections.
+     */
+    private static volatile long collections;
+
+    /**
+     * The metaspace usage after the last forced collection.
+     */
+    private static long metaspaceBaseline = metaspaceUsed();
+
+    /**
+     * The number of loaded classes after the last forced collection.
+     */
+    private static long classBaseline = loadedClasses();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Configuration
+
+    /**
+     * Sets the budgets after which a collection is forced.
+     * A budget of {@code 0} forces a collection whenever a loader is
+     * retired.
+     *
+     * @param metaspaceBudget The growth of the metaspace in bytes
+     * @param classBudget     The number of additionally loaded classes
+     */
+    public static void configure(long metaspaceBudget, int classBudget) {
+        if (metaspaceBudget < 0 || classBudget < 0)
+            throw new IllegalArgumentException("The unloading budgets must at least be 0");
+
+        LoaderTracker.metaspaceBudget = metaspaceBudget;
+        LoaderTracker.classBudget = classBudget;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Tracking
+
+    /**
+     * Starts tracking the given loader that is no longer used and forces a
+     * collection if the budget is exceeded.
+     *
+     * @param loader    The retired loader (may be {@code null})
+     * @param className The name of the class that was last loaded by the
+     *                  loader (or {@code null} if it did not load any)
+     */
+    public static void retire(ClassLoader loader, String className) {
+        if (loader != null)
+            retired.add(new Retired(loader, className));
+
+        drain();
+
+        if (exceedsBudget())
+            collect();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * Removes the references of all loaders that were collected.
+     */
+    private static void drain() {
+        Reference<? extends ClassLoader> ref;
+        while ((ref = queue.poll()) != null) {
+            ref.clear();
+            if (retired.remove(ref))
+                Metrics.loaderUnloaded();
+        }
+    }
+
+    /**
+     * Drains the references that are enqueued within the timeout.
+     */
+    private static void awaitEnqueued() {
+        try {
+            Reference<? extends ClassLoader> ref;
+            while ((ref = queue.remove(ENQUEUE_TIMEOUT)) != null) {
+                ref.clear();
+                if (retired.remove(ref))
+                    Metrics.loaderUnloaded();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return {@code true} if the metaspace or the number of loaded
+     * classes grew by more than the budget since the last collection
+     */
+    private static synchronized boolean exceedsBudget() {
+        long metaspace = metaspaceUsed();
+        return loadedClasses() - classBaseline >= classBudget
+                || (metaspace >= 0 && metaspace - metaspaceBaseline >= metaspaceBudget);
+    }
+
+    /**
+     * Forces a collection, resets the baselines and reports the loaders
+     * that survived too many collections.
+     */
+    private static synchronized void collect() {
+        // another thread may have collected in the meantime
+        if (!exceedsBudget())
+            return;
+
+        System.gc();
+        collections++;
+        Metrics.collectionForced();
+
+        drain();
+        metaspaceBaseline = metaspaceUsed();
+        classBaseline = loadedClasses();
+
+        boolean waited = false;
+        for (Retired ref : retired) {
+            if (collections - ref.collection < LEAK_COLLECTIONS)
+                continue;
+
+            if (!waited) {
+                awaitEnqueued();
+                waited = true;
+            }
+            if (!retired.contains(ref))
+                continue;
+
+            // only report each leak once
+            retired.remove(ref);
+            Metrics.loaderLeaked();
+            logger.warning(String.format(
+                    "%s - Class loader was not collected %d s after it was replaced",
+                    ref.className,
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - ref.time)
+            ));
+        }
+    }
+
+    /**
+     * @return the number of classes that are currently loaded
+     */
+    private static long loadedClasses() {
+        return ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+    }
+
+    /**
+     * @return the used metaspace in bytes
+     * (or {@code -1} if the JVM does not report it)
+     */
+    private static long metaspaceUsed() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.NON_HEAP && pool.getName().equals("Metaspace"))
+                return pool.getUsage().getUsed();
+
+        return -1;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,260 @@
+package at.jku.ssw.java.bytecode.generator.tests.loading;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only view of the class files in a jar or zip archive.
+ * The archive is memory-mapped once and its central directory is parsed
+ * up front, so individual class files are read (and inflated if necessary)
+ * directly from the mapping without any further file system access.
+ * Reading is thread-safe.
+ * ZIP64 archives are not supported.
+ */
+public final class MappedArchive {
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The signature of the end of central directory record.
+     */
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    /**
+     * The signature of a central directory file header.
+     */
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+
+    /**
+     * The signature of a local file header.
+     */
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+
+    /**
+     * The minimum size of the end of central directory record.
+     */
+    private static final int END_SIZE = 22;
+
+    /**
+     * The maximum length of the archive comment.
+     */
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    /**
+     * The compression method of stored entries.
+     */
+    private static final int STORED = 0;
+
+    /**
+     * The compression method of deflated entries.
+     */
+    private static final int DEFLATED = 8;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Nested types
+
+    /**
+     * The location of an entry within the archive.
+     */
+    private static final class Entry {
+        private final int localHeader;
+        private final int method;
+        private final int compressedSize;
+        private final int size;
+
+        private Entry(int localHeader, int method, int compressedSize, int size) {
+            this.localHeader = localHeader;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The archive file.
+     */
+    private final Path file;
+
+    /**
+     * The mapped contents of the archive.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The class file entries identified by their class names.
+     */
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Maps the given archive and reads its central directory.
+     *
+     * @param file The jar or zip file
+     * @throws IOException if the file cannot be mapped or is not a valid
+     *                     archive
+     */
+    public MappedArchive(Path file) throws IOException {
+        this.file = file;
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to be mapped");
+
+            // the mapping remains valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        readCentralDirectory();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * @return the names of all classes in the archive
+     */
+    public Set<String> classNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Reads the class file of the given class.
+     *
+     * @param className The name of the class
+     * @return the contents of the class file
+     * @throws IOException if the class is not contained in the archive or
+     *                     cannot be inflated
+     */
+    public byte[] read(String className) throws IOException {
+        Entry entry = entries.get(className);
+        if (entry == null)
+            throw new IOException("Unknown class " + className + " in " + file);
+
+        if (buffer.getInt(entry.localHeader) != LOCAL_SIGNATURE)
+            throw new IOException("Invalid local header of " + className + " in " + file);
+
+        // the local extra field may differ from the central one
+        int data = entry.localHeader + 30
+                + (buffer.getShort(entry.localHeader + 26) & 0xFFFF)
+                + (buffer.getShort(entry.localHeader + 28) & 0xFFFF);
+
+        byte[] compressed = new byte[entry.compressedSize];
+        ByteBuffer view = buffer.duplicate();
+        view.position(data);
+        view.get(compressed);
+
+        if (entry.method == STORED)
+            return compressed;
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] bytes = new byte[entry.size];
+            int n = 0;
+            while (n < bytes.length && !inflater.finished()) {
+                int read = inflater.inflate(bytes, n, bytes.length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                n += read;
+            }
+
+            if (n != bytes.length)
+                throw new IOException("Truncated entry " + className + " in " + file);
+
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid entry " + className + " in " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * Locates the end of central directory record and registers all class
+     * file entries of the central directory.
+     *
+     * @throws IOException if the archive is invalid or uses unsupported
+     *                     features
+     */
+    private void readCentralDirectory() throws IOException {
+        int end = -1;
+        for (int i = buffer.limit() - END_SIZE; i >= Math.max(0, buffer.limit() - END_SIZE - MAX_COMMENT); i--) {
+            if (buffer.getInt(i) == END_SIGNATURE) {
+                end = i;
+                break;
+            }
+        }
+
+        if (end < 0)
+            throw new IOException(file + " is not a zip archive");
+
+        int count = buffer.getShort(end + 10) & 0xFFFF;
+        long offset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+
+        if (count == 0xFFFF || offset == 0xFFFFFFFFL)
+            throw new IOException(file + " is a ZIP64 archive, which is not supported");
+
+        int pos = (int) offset;
+        for (int i = 0; i < count; i++) {
+            if (buffer.getInt(pos) != CENTRAL_SIGNATURE)
+                throw new IOException("Invalid central directory in " + file);
+
+            int method = buffer.getShort(pos + 10) & 0xFFFF;
+            int compressedSize = buffer.getInt(pos + 20);
+            int size = buffer.getInt(pos + 24);
+            int nameLength = buffer.getShort(pos + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(pos + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(pos + 32) & 0xFFFF;
+            int localHeader = buffer.getInt(pos + 42);
+
+            byte[] nameBytes = new byte[nameLength];
+            ByteBuffer view = buffer.duplicate();
+            view.position(pos + 46);
+            view.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class")) {
+                if (method != STORED && method != DEFLATED)
+                    throw new IOException("Unsupported compression method " + method + " of " + name + " in " + file);
+
+                entries.put(
+                        name.substring(0, name.length() - 6).replace('/', '.'),
+                        new Entry(localHeader, method, compressedSize, size)
+                );
+            }
+
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
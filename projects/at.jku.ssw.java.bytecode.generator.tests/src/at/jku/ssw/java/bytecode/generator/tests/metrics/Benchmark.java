@@ -0,0 +1,162 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.logging.Logger;
+
+/**
+ * Compares the execution speed of interpreted code, code that was compiled
+ * without profiling information and code that was compiled with profiling
+ * information.
+ * Classes whose profile-guided code is clearly slower than the code
+ * compiled without profiles (or the interpreter) are reported as
+ * performance regressions and kept in the slowdown directory.
+ * The benchmark is disabled unless {@link #enable(Path, int, double)}
+ * is called.
+ */
+public final class Benchmark {
+    private Benchmark() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(Benchmark.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The directory where slow classes are stored
+     * (or {@code null} if the benchmark is disabled).
+     */
+    private static volatile Path directory;
+
+    /**
+     * The number of times that the installed code is executed.
+     */
+    private static volatile int runs;
+
+    /**
+     * The factor by which the optimized code must be slower to be reported.
+     */
+    private static volatile double factor;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Configuration
+
+    /**
+     * Enables the benchmark.
+     *
+     * @param directory The directory where slow classes are stored
+     * @param runs      The number of times the installed code is executed
+     * @param factor    The factor by which the optimized code must be slower
+     *                  to be reported
+     * @throws IOException if the directory cannot be created
+     */
+    public static void enable(Path directory, int runs, double factor) throws IOException {
+        if (runs <= 0)
+            throw new IllegalArgumentException("The number of benchmark runs must be greater than 0");
+        if (factor < 1)
+            throw new IllegalArgumentException("The slowdown factor must at least be 1");
+
+        Files.createDirectories(directory);
+        Benchmark.runs = runs;
+        Benchmark.factor = factor;
+        Benchmark.directory = directory;
+    }
+
+    /**
+     * @return {@code true} if the installed code should be benchmarked
+     */
+    public static boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * @return the number of times that the installed code is executed
+     */
+    public static int runs() {
+        return runs;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Evaluation
+
+    /**
+     * Determines the median of the given execution times.
+     *
+     * @param times The execution times
+     * @return the median
+     */
+    public static long median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Compares the execution times of a class and stores it if the optimized
+     * code is clearly slower than the compiled code or the interpreter.
+     * Classes with a missing execution time (e.g. because the installed
+     * code was invalidated in every run) are not compared.
+     *
+     * @param className   The name of the class
+     * @param classFile   The contents of the class file
+     * @param interpreted The execution time of the interpreter
+     * @param compiled    The median execution time of the code compiled
+     *                    without profiling information
+     * @param optimized   The median execution time of the code compiled
+     *                    with profiling information
+     * @return {@code true} if the class is reported as slow
+     * @throws IOException if the class cannot be stored
+     */
+    public static boolean compare(String className,
+                                  byte[] classFile,
+                                  long interpreted,
+                                  long compiled,
+                                  long optimized) throws IOException {
+
+        if (!isEnabled() || interpreted == 0 || compiled == 0 || optimized == 0)
+            return false;
+
+        boolean slowerThanCompiled = optimized > factor * compiled;
+        boolean slowerThanInterpreted = optimized > factor * interpreted;
+
+        if (!slowerThanCompiled && !slowerThanInterpreted)
+            return false;
+
+        String measurement = String.format(
+                "interpreted: %.3f ms, compiled: %.3f ms, optimized: %.3f ms (median of %d runs)",
+                interpreted / 1e6,
+                compiled / 1e6,
+                optimized / 1e6,
+                runs
+        );
+
+        logger.warning("Slow optimized code " + className + " - " + measurement);
+
+        Path dir = directory;
+        Files.write(dir.resolve(className + ".class"), classFile);
+        Files.write(
+                dir.resolve(className + ".txt"),
+                Collections.singletonList(measurement),
+                StandardCharsets.UTF_8
+        );
+
+        return true;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,175 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Global accounting of the code that the runners install into and
+ * invalidate from the code cache.
+ * The installed and invalidated bytes are tracked per class until the
+ * class is {@link #release(String) released}. Classes whose code is still
+ * live at that point leak code cache space, which is reported.
+ */
+public final class CodeCacheUsage {
+    private CodeCacheUsage() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(CodeCacheUsage.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The name prefix of the code cache memory pools (which are split
+     * into several code heaps as of JDK 9).
+     */
+    private static final String CODE_CACHE = "Code";
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The installed and invalidated bytes of each class that was not
+     * released yet.
+     */
+    private static final ConcurrentMap<String, LongAdder[]> classes = new ConcurrentHashMap<>();
+
+    /**
+     * The total number of installed bytes.
+     */
+    private static final LongAdder installed = new LongAdder();
+
+    /**
+     * The total number of invalidated bytes.
+     */
+    private static final LongAdder invalidated = new LongAdder();
+
+    /**
+     * The number of bytes that were still live when their class was
+     * released.
+     */
+    private static final LongAdder leaked = new LongAdder();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Accounting
+
+    /**
+     * Records code that was installed for the given class.
+     *
+     * @param className The name of the class
+     * @param bytes     The size of the installed code
+     */
+    public static void installed(String className, long bytes) {
+        sizes(className)[0].add(bytes);
+        installed.add(bytes);
+    }
+
+    /**
+     * Records code of the given class that was invalidated.
+     *
+     * @param className The name of the class
+     * @param bytes     The size of the invalidated code
+     */
+    public static void invalidated(String className, long bytes) {
+        sizes(className)[1].add(bytes);
+        invalidated.add(bytes);
+    }
+
+    /**
+     * Stops tracking the given class (once all of its runners finished)
+     * and reports its code if it was not invalidated.
+     *
+     * @param className The name of the class
+     * @return the number of bytes that are still live
+     */
+    public static long release(String className) {
+        LongAdder[] sizes = classes.remove(className);
+        if (sizes == null)
+            return 0;
+
+        long live = sizes[0].sum() - sizes[1].sum();
+        if (live > 0) {
+            leaked.add(live);
+            logger.warning(String.format(
+                    "%s - %d of %d installed bytes were not invalidated",
+                    className,
+                    live,
+                    sizes[0].sum()
+            ));
+        }
+
+        return live;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Reporting
+
+    /**
+     * @return {@code true} if any code was installed
+     */
+    public static boolean isUsed() {
+        return installed.sum() > 0;
+    }
+
+    /**
+     * Summarizes the installed, invalidated and live code and the current
+     * occupancy of the code cache.
+     *
+     * @return the report
+     */
+    public static String report() {
+        long used = 0;
+        long max = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.NON_HEAP || !pool.getName().startsWith(CODE_CACHE))
+                continue;
+
+            MemoryUsage usage = pool.getUsage();
+            used += usage.getUsed();
+            if (usage.getMax() > 0)
+                max += usage.getMax();
+        }
+
+        return String.format(
+                "Code cache: %d KB installed, %d KB invalidated, %d KB live (%d classes), %d KB leaked, %d of %d MB used",
+                installed.sum() >> 10,
+                invalidated.sum() >> 10,
+                (installed.sum() - invalidated.sum()) >> 10,
+                classes.size(),
+                leaked.sum() >> 10,
+                used >> 20,
+                max >> 20
+        );
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * @param className The name of the class
+     * @return the installed and invalidated bytes of the given class
+     */
+    private static LongAdder[] sizes(String className) {
+        return classes.computeIfAbsent(className, c -> new LongAdder[]{new LongAdder(), new LongAdder()});
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,205 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * Detects methods whose compile time is unusually high.
+ * The compile time of each method is normalized by its bytecode size
+ * and compared to the running p99 of all methods of the same template.
+ * Methods that exceed a multiple of this percentile are reported and their
+ * class files are kept in the outlier directory together with the
+ * measurements.
+ * The detection is disabled unless {@link #enable(Path, double)} is called.
+ */
+public final class CompileTimeOutliers {
+    private CompileTimeOutliers() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(CompileTimeOutliers.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The number of methods of a template that have to be measured
+     * before the p99 is considered meaningful.
+     */
+    private static final int MIN_SAMPLES = 100;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The histograms of the normalized compile times
+     * (nanoseconds per bytecode byte) of each template.
+     */
+    private static final ConcurrentMap<String, Histogram> normalized = new ConcurrentHashMap<>();
+
+    /**
+     * The number of stored outliers of each class that were not yet
+     * collected via {@link #collect(String)}.
+     */
+    private static final ConcurrentMap<String, Integer> found = new ConcurrentHashMap<>();
+
+    /**
+     * The directory where the outliers are stored
+     * (or {@code null} if the detection is disabled).
+     */
+    private static volatile Path directory;
+
+    /**
+     * The multiple of the p99 that a method must exceed to be an outlier.
+     */
+    private static volatile double factor;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Configuration
+
+    /**
+     * Enables the outlier detection.
+     *
+     * @param directory The directory where outliers are stored
+     * @param factor    The multiple of the per-template p99 of the normalized
+     *                  compile time that marks an outlier
+     * @throws IOException if the directory cannot be created
+     */
+    public static void enable(Path directory, double factor) throws IOException {
+        if (factor <= 1)
+            throw new IllegalArgumentException("The outlier factor must be greater than 1");
+
+        Files.createDirectories(directory);
+        CompileTimeOutliers.factor = factor;
+        CompileTimeOutliers.directory = directory;
+    }
+
+    /**
+     * @return {@code true} if outliers are detected
+     */
+    public static boolean isEnabled() {
+        return directory != null;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Detection
+
+    /**
+     * Records the compile time of a method and checks whether it is an
+     * outlier. The p99 is determined before the current method is
+     * recorded.
+     *
+     * @param template     The template of the class
+     * @param bytecodeSize The bytecode size of the method
+     * @param nanos        The compile time in nanoseconds
+     * @return the ratio of the normalized compile time to the p99 if the
+     * method is an outlier; {@code 0} otherwise
+     */
+    public static double check(String template, int bytecodeSize, long nanos) {
+        if (!isEnabled())
+            return 0;
+
+        Histogram h = normalized.computeIfAbsent(template, t -> new Histogram());
+        long perByte = nanos / Math.max(1, bytecodeSize);
+
+        double ratio = 0;
+        if (h.count() >= MIN_SAMPLES) {
+            long p99 = Math.max(1, h.percentile(99));
+            if (perByte > factor * p99)
+                ratio = (double) perByte / p99;
+        }
+
+        h.record(perByte);
+        return ratio;
+    }
+
+    /**
+     * Stores an outlier in the outlier directory. The class file is written
+     * as {@code <class>.class} and the measurement is appended to
+     * {@code <class>.txt}.
+     *
+     * @param className    The name of the class
+     * @param classFile    The contents of the class file
+     * @param method       The signature of the method
+     * @param bytecodeSize The bytecode size of the method
+     * @param nanos        The compile time in nanoseconds
+     * @param ratio        The ratio to the p99 of the template
+     * @throws IOException if the files cannot be written
+     */
+    public static void store(String className,
+                             byte[] classFile,
+                             String method,
+                             int bytecodeSize,
+                             long nanos,
+                             double ratio) throws IOException {
+
+        Path dir = directory;
+        String measurement = String.format(
+                "%s: %d bytes compiled in %.3f ms (%d ns/byte, %.1fx p99)",
+                method,
+                bytecodeSize,
+                nanos / 1e6,
+                nanos / Math.max(1, bytecodeSize),
+                ratio
+        );
+
+        logger.warning("Compile time outlier " + className + " - " + measurement);
+        found.merge(className, 1, Integer::sum);
+
+        synchronized (CompileTimeOutliers.class) {
+            Files.write(dir.resolve(className + ".class"), classFile);
+            Files.write(
+                    dir.resolve(className + ".txt"),
+                    Collections.singletonList(measurement),
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND
+            );
+        }
+    }
+
+    /**
+     * Collects the number of outliers that were stored for the given class
+     * and resets it.
+     *
+     * @param className The name of the class
+     * @return the number of methods of the class that were stored as
+     * outliers since the last collection
+     */
+    public static int collect(String className) {
+        Integer n = found.remove(className);
+        return n == null ? 0 : n;
+    }
+
+    /**
+     * Adds outliers of the given class that were stored by another process
+     * (e.g. an isolated worker), so they are also reported by
+     * {@link #collect(String)}.
+     *
+     * @param className The name of the class
+     * @param count     The number of stored outliers
+     */
+    public static void merge(String className, int count) {
+        if (count > 0)
+            found.merge(className, count, Integer::sum);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
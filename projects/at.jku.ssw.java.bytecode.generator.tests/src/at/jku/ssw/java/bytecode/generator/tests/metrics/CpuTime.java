@@ -0,0 +1,48 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the CPU time of the current thread, e.g. to account for the
+ * cost of a generated class independently of how many other classes are
+ * tested concurrently.
+ * If the JVM does not measure the CPU time of threads, the wall-clock time
+ * is used instead.
+ */
+public final class CpuTime {
+    private CpuTime() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The thread bean that measures the CPU time.
+     */
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Measurement
+
+    /**
+     * @return {@code true} if the CPU time of the current thread is
+     * measured
+     */
+    public static boolean isSupported() {
+        return threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * @return the CPU time of the current thread in nanoseconds (or the
+     * {@link System#nanoTime()} if it is not supported), which is only
+     * meaningful as difference of two measurements on the same thread
+     */
+    public static long current() {
+        return isSupported() ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
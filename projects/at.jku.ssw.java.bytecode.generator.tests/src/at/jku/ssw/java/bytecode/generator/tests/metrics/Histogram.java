@@ -0,0 +1,155 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of non-negative values (e.g. latencies in
+ * nanoseconds) with logarithmic buckets.
+ * Each power of two is split into {@link #SUB_BUCKETS} linear sub-buckets,
+ * therefore percentiles are accurate to about 12.5%.
+ */
+public final class Histogram {
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The number of bits that select the linear sub-bucket.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * The number of linear sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The counts of the individual buckets.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE * SUB_BUCKETS);
+
+    /**
+     * The number of recorded values.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * The sum of all recorded values.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * The maximum recorded value.
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Records the given value.
+     *
+     * @param value The value (negative values are recorded as 0)
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return the sum of all recorded values
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return the maximum recorded value
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Approximates the given percentile.
+     *
+     * @param percentile The percentile between 0 and 100
+     * @return the upper bound of the bucket that contains the percentile
+     * (but at most the maximum value) or {@code 0} if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long total = count();
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank)
+                return Math.min(upperBoundOf(i), max());
+        }
+
+        return max();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * Determines the bucket of the given value.
+     *
+     * @param value The non-negative value
+     * @return the index of the bucket
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Determines the largest value of the given bucket.
+     *
+     * @param bucket The index of the bucket
+     * @return the inclusive upper bound of the bucket
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS;
+
+        long bound = ((SUB_BUCKETS + sub + 1) << shift) - 1;
+
+        // the last bucket exceeds the value range
+        return bound < 0 ? Long.MAX_VALUE : bound;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
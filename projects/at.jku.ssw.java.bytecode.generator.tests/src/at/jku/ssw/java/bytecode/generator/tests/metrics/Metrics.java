@@ -0,0 +1,420 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Global registry of the per-template latency histograms of each
+ * {@link Phase} and of the overall throughput.
+ */
+public final class Metrics {
+    private Metrics() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(Metrics.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The percentiles that are reported.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The histograms of each phase identified by the template name.
+     */
+    private static final ConcurrentMap<String, Map<Phase, Histogram>> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * The number of classes that were tested completely.
+     */
+    private static final LongAdder classes = new LongAdder();
+
+    /**
+     * The number of generated classes that were skipped because they
+     * duplicate earlier programs.
+     */
+    private static final LongAdder duplicates = new LongAdder();
+
+    /**
+     * The number of isolated workers that crashed.
+     */
+    private static final LongAdder workerCrashes = new LongAdder();
+
+    /**
+     * The number of executions that were stopped by the watchdog.
+     */
+    private static final LongAdder stopped = new LongAdder();
+
+    /**
+     * The number of isolated workers that were recycled.
+     */
+    private static final LongAdder workerRecycles = new LongAdder();
+
+    /**
+     * The number of replaced class loaders that were collected.
+     */
+    private static final LongAdder unloaded = new LongAdder();
+
+    /**
+     * The number of replaced class loaders that were never collected.
+     */
+    private static final LongAdder leaked = new LongAdder();
+
+    /**
+     * The number of collections that were forced to unload classes.
+     */
+    private static final LongAdder forcedCollections = new LongAdder();
+
+    /**
+     * The number of replayed profiles.
+     */
+    private static final LongAdder replayedProfiles = new LongAdder();
+
+    /**
+     * The number of replayed profiles that differed from the recorded ones.
+     */
+    private static final LongAdder divergedProfiles = new LongAdder();
+
+    /**
+     * The compiled bytecode sizes, installed code sizes and number of
+     * compiled methods identified by the template name.
+     */
+    private static final ConcurrentMap<String, LongAdder[]> compilations = new ConcurrentHashMap<>();
+
+    /**
+     * The number of adaptively warmed up classes, their warmup runs, the
+     * number of classes with mature profiles and the number of classes
+     * without profile (that fell back to the fixed number of runs)
+     * identified by the template name.
+     */
+    private static final ConcurrentMap<String, LongAdder[]> warmups = new ConcurrentHashMap<>();
+
+    /**
+     * The time when the measurement started.
+     */
+    private static final long start = System.nanoTime();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Recording
+
+    /**
+     * Determines the template of a generated class, which is the class name
+     * without the repetition postfix (e.g. {@code ManyLoops12 -> ManyLoops}).
+     *
+     * @param className The name of the (generated) class
+     * @return the name of the template
+     */
+    public static String templateOf(String className) {
+        int end = className.length();
+        while (end > 0 && Character.isDigit(className.charAt(end - 1)))
+            end--;
+
+        return end == 0 ? className : className.substring(0, end);
+    }
+
+    /**
+     * @see #templateOf(String)
+     */
+    public static String templateOf(Class<?> clazz) {
+        return templateOf(clazz.getSimpleName());
+    }
+
+    /**
+     * Looks up the histogram of the given template and phase.
+     *
+     * @param template The template name
+     * @param phase    The phase
+     * @return the histogram (which is created if necessary)
+     */
+    public static Histogram histogram(String template, Phase phase) {
+        Map<Phase, Histogram> phases = histograms.computeIfAbsent(template, t -> {
+            Map<Phase, Histogram> m = new EnumMap<>(Phase.class);
+            for (Phase p : Phase.values())
+                m.put(p, new Histogram());
+            return m;
+        });
+
+        return phases.get(phase);
+    }
+
+    /**
+     * Records the duration of a phase for the given template.
+     *
+     * @param template The template name
+     * @param phase    The phase
+     * @param start    The start time in nanoseconds
+     *                 (as of {@link System#nanoTime()})
+     * @return the elapsed time in nanoseconds
+     */
+    public static long record(String template, Phase phase, long start) {
+        long elapsed = System.nanoTime() - start;
+        histogram(template, phase).record(elapsed);
+        return elapsed;
+    }
+
+    /**
+     * Records the sizes of a compiled method.
+     *
+     * @param template          The template name
+     * @param bytecodeSize      The bytecode size of the method
+     * @param installedCodeSize The size of the installed code
+     */
+    public static void recordCompilation(String template, int bytecodeSize, long installedCodeSize) {
+        LongAdder[] sizes = compilations.computeIfAbsent(
+                template,
+                t -> new LongAdder[]{new LongAdder(), new LongAdder(), new LongAdder()}
+        );
+
+        sizes[0].add(bytecodeSize);
+        sizes[1].add(installedCodeSize);
+        sizes[2].increment();
+    }
+
+    /**
+     * Records the adaptive warmup of a class.
+     *
+     * @param template The template name
+     * @param runs     The number of warmup runs
+     * @param profiled Whether the profile of the class was sampled
+     *                 (otherwise the fixed number of runs was used)
+     * @param mature   Whether the profile of the class was mature
+     */
+    public static void recordWarmup(String template, int runs, boolean profiled, boolean mature) {
+        LongAdder[] counts = warmups.computeIfAbsent(
+                template,
+                t -> new LongAdder[]{new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()}
+        );
+        counts[0].increment();
+        counts[1].add(runs);
+        if (mature)
+            counts[2].increment();
+        if (!profiled)
+            counts[3].increment();
+    }
+
+    /**
+     * Counts a replayed profile.
+     *
+     * @param matched Whether the resulting profile matched the recorded one
+     */
+    public static void profileReplayed(boolean matched) {
+        replayedProfiles.increment();
+        if (!matched)
+            divergedProfiles.increment();
+    }
+
+    /**
+     * Counts a completely tested class.
+     */
+    public static void classTested() {
+        classes.increment();
+    }
+
+    /**
+     * Counts a generated class that duplicates an earlier program.
+     */
+    public static void duplicateSkipped() {
+        duplicates.increment();
+    }
+
+    /**
+     * Counts an isolated worker that crashed while testing a class.
+     */
+    public static void workerCrashed() {
+        workerCrashes.increment();
+    }
+
+    /**
+     * Counts an isolated worker that was recycled since it exceeded its
+     * resource limits.
+     */
+    public static void workerRecycled() {
+        workerRecycles.increment();
+    }
+
+    /**
+     * Counts an execution that exceeded its budget and was stopped.
+     */
+    public static void executionStopped() {
+        stopped.increment();
+    }
+
+    /**
+     * Counts a replaced class loader that was collected.
+     */
+    public static void loaderUnloaded() {
+        unloaded.increment();
+    }
+
+    /**
+     * Counts a replaced class loader that survived several collections.
+     */
+    public static void loaderLeaked() {
+        leaked.increment();
+    }
+
+    /**
+     * Counts a collection that was forced to unload classes.
+     */
+    public static void collectionForced() {
+        forcedCollections.increment();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Reporting
+
+    /**
+     * Summarizes the throughput and the latency percentiles of all phases
+     * for each template.
+     *
+     * @return the report
+     */
+    public static String report() {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long tested = classes.sum();
+
+        StringBuilder sb = new StringBuilder(String.format(
+                "Throughput: %d classes in %.1f s (%.2f classes/s)",
+                tested,
+                seconds,
+                seconds > 0 ? tested / seconds : 0
+        ));
+
+        if (duplicates.sum() > 0)
+            sb.append(String.format(", %d duplicate programs skipped", duplicates.sum()));
+        if (workerCrashes.sum() > 0)
+            sb.append(String.format(", %d worker crashes", workerCrashes.sum()));
+        if (workerRecycles.sum() > 0)
+            sb.append(String.format(", %d workers recycled", workerRecycles.sum()));
+        if (stopped.sum() > 0)
+            sb.append(String.format(", %d executions stopped", stopped.sum()));
+        if (unloaded.sum() > 0 || leaked.sum() > 0)
+            sb.append(String.format(
+                    ", %d class loaders unloaded (%d leaked, %d forced collections)",
+                    unloaded.sum(),
+                    leaked.sum(),
+                    forcedCollections.sum()
+            ));
+
+        if (replayedProfiles.sum() > 0)
+            sb.append(String.format(
+                    ", %d profiles replayed (%d differed)",
+                    replayedProfiles.sum(),
+                    divergedProfiles.sum()
+            ));
+
+        histograms.keySet().stream().sorted().forEach(template -> {
+            for (Phase phase : Phase.values()) {
+                Histogram h = histogram(template, phase);
+                if (h.count() == 0)
+                    continue;
+
+                sb.append(String.format("%n%-20s %-17s n=%-7d", template, phase, h.count()));
+                for (double p : PERCENTILES)
+                    sb.append(String.format(" p%.0f=%9s", p, formatNanos(h.percentile(p))));
+                sb.append(String.format(" max=%9s", formatNanos(h.max())));
+            }
+        });
+
+        // the compiler throughput is based on the accumulated compile time
+        compilations.keySet().stream().sorted().forEach(template -> {
+            LongAdder[] sizes = compilations.get(template);
+            double compileSeconds = histogram(template, Phase.COMPILE).sum() / 1e9;
+
+            sb.append(String.format(
+                    "%n%-20s %-17s methods=%-7d %.1f methods/s %.0f bytecodes/s %d installed bytes",
+                    template,
+                    "COMPILER",
+                    sizes[2].sum(),
+                    compileSeconds > 0 ? sizes[2].sum() / compileSeconds : 0,
+                    compileSeconds > 0 ? sizes[0].sum() / compileSeconds : 0,
+                    sizes[1].sum()
+            ));
+        });
+
+        warmups.keySet().stream().sorted().forEach(template -> {
+            LongAdder[] counts = warmups.get(template);
+
+            sb.append(String.format(
+                    "%n%-20s %-17s classes=%-7d %.1f runs/class %.0f%% mature %d unprofiled (fixed runs)",
+                    template,
+                    "WARMUP",
+                    counts[0].sum(),
+                    counts[1].sum() / (double) counts[0].sum(),
+                    100.0 * counts[2].sum() / counts[0].sum(),
+                    counts[3].sum()
+            ));
+        });
+
+        if (CodeCacheUsage.isUsed())
+            sb.append(String.format("%n%s", CodeCacheUsage.report()));
+
+        return sb.toString();
+    }
+
+    /**
+     * Logs the report periodically.
+     *
+     * @param interval The interval in seconds
+     */
+    public static void reportEvery(long interval) {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics");
+            t.setDaemon(true);
+            return t;
+        });
+
+        reporter.scheduleAtFixedRate(
+                () -> logger.info(report()),
+                interval,
+                interval,
+                TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * Logs the report.
+     */
+    public static void logReport() {
+        logger.info(report());
+    }
+
+    /**
+     * Formats the given duration with a suitable unit.
+     *
+     * @param nanos The duration in nanoseconds
+     * @return the formatted duration
+     */
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000_000L)
+            return String.format("%.1fus", nanos / 1e3);
+        if (nanos < 1_000_000_000L)
+            return String.format("%.1fms", nanos / 1e6);
+        return String.format("%.2fs", nanos / 1e9);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
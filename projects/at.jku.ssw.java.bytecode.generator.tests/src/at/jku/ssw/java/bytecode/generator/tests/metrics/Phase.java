@@ -0,0 +1,31 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+/**
+ * The phases of the generate-and-test process that are timed.
+ */
+public enum Phase {
+    /**
+     * Generation of a class file from a template.
+     */
+    GENERATE,
+    /**
+     * (Re-)loading of a class.
+     */
+    LOAD,
+    /**
+     * Execution of a class in the interpreter.
+     */
+    INTERPRET,
+    /**
+     * Compilation of a single method.
+     */
+    COMPILE,
+    /**
+     * Execution of the code that was compiled without profiling information.
+     */
+    EXECUTE_COMPILED,
+    /**
+     * Execution of the code that was compiled with profiling information.
+     */
+    EXECUTE_OPTIMIZED
+}
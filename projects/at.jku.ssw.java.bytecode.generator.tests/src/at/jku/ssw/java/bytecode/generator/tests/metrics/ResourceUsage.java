@@ -0,0 +1,144 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Global limits of the heap, metaspace and code cache usage of this JVM
+ * after which it should be recycled (i.e. replaced by a fresh process),
+ * since long campaigns slowly accumulate metaspace, invalidated code and
+ * other garbage that reduce the throughput.
+ * The usage is sampled via the memory pool MXBeans.
+ * No limit is set unless {@link #limit(long, long, long)} is called.
+ */
+public final class ResourceUsage {
+    private ResourceUsage() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The name of the metaspace memory pool.
+     */
+    private static final String METASPACE = "Metaspace";
+
+    /**
+     * The name prefix of the code cache memory pools (which are split
+     * into several code heaps as of JDK 9).
+     */
+    private static final String CODE_CACHE = "Code";
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The live heap in bytes after which the JVM is recycled
+     * (or {@code 0} if it is unlimited).
+     */
+    private static volatile long heapLimit;
+
+    /**
+     * The used metaspace in bytes after which the JVM is recycled
+     * (or {@code 0} if it is unlimited).
+     */
+    private static volatile long metaspaceLimit;
+
+    /**
+     * The used code cache in bytes after which the JVM is recycled
+     * (or {@code 0} if it is unlimited).
+     */
+    private static volatile long codeCacheLimit;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Configuration
+
+    /**
+     * Sets the limits after which the JVM should be recycled.
+     *
+     * @param heapLimit      The live heap in bytes (or {@code 0} if it is
+     *                       unlimited)
+     * @param metaspaceLimit The used metaspace in bytes (or {@code 0} if it
+     *                       is unlimited)
+     * @param codeCacheLimit The used code cache in bytes (or {@code 0} if it
+     *                       is unlimited)
+     */
+    public static void limit(long heapLimit, long metaspaceLimit, long codeCacheLimit) {
+        if (heapLimit < 0 || metaspaceLimit < 0 || codeCacheLimit < 0)
+            throw new IllegalArgumentException("The recycling limits must at least be 0");
+
+        ResourceUsage.heapLimit = heapLimit;
+        ResourceUsage.metaspaceLimit = metaspaceLimit;
+        ResourceUsage.codeCacheLimit = codeCacheLimit;
+    }
+
+    /**
+     * @return {@code true} if any limit is set
+     */
+    public static boolean isLimited() {
+        return heapLimit > 0 || metaspaceLimit > 0 || codeCacheLimit > 0;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Sampling
+
+    /**
+     * Samples the current usage and compares it to the limits.
+     *
+     * @return the description of the exceeded limit
+     * (or {@code null} if the usage is within all limits)
+     */
+    public static String exceeded() {
+        if (!isLimited())
+            return null;
+
+        long heap = 0;
+        long metaspace = 0;
+        long codeCache = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                // the usage after the last collection approximates the
+                // live heap (and ignores garbage that is not collected yet)
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null)
+                    heap += usage.getUsed();
+            } else if (pool.getName().equals(METASPACE)) {
+                metaspace += pool.getUsage().getUsed();
+            } else if (pool.getName().startsWith(CODE_CACHE)) {
+                codeCache += pool.getUsage().getUsed();
+            }
+        }
+
+        if (heapLimit > 0 && heap > heapLimit)
+            return describe("Live heap", heap, heapLimit);
+        if (metaspaceLimit > 0 && metaspace > metaspaceLimit)
+            return describe("Metaspace", metaspace, metaspaceLimit);
+        if (codeCacheLimit > 0 && codeCache > codeCacheLimit)
+            return describe("Code cache", codeCache, codeCacheLimit);
+
+        return null;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * @param resource The name of the resource
+     * @param used     The used bytes
+     * @param limit    The limit in bytes
+     * @return the description of the exceeded limit
+     */
+    private static String describe(String resource, long used, long limit) {
+        return String.format("%s uses %d MB (limit %d MB)", resource, used >> 20, limit >> 20);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
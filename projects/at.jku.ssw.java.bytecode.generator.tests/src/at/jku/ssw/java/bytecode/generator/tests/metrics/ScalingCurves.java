@@ -0,0 +1,175 @@
+package at.jku.ssw.java.bytecode.generator.tests.metrics;
+
+import at.jku.ssw.java.bytecode.generator.tests.results.CompilationSample;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the compile times and code sizes of classes that were generated
+ * with different numbers of generation iterations and fits the growth
+ * curve of each template.
+ * The curve is approximated by a power law {@code time = c * size^k}
+ * whose exponent {@code k} is the slope of a least squares fit in log-log
+ * space. Templates whose compile time exponent exceeds a threshold
+ * (i.e. that scale superlinearly with the bytecode size) are flagged.
+ */
+public final class ScalingCurves {
+
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The exponent above which the compile time of a template is
+     * considered to grow superlinearly.
+     */
+    private final double threshold;
+
+    /**
+     * The samples of each template grouped by the number of generation
+     * iterations.
+     */
+    private final Map<String, TreeMap<Integer, List<CompilationSample>>> samples = new LinkedHashMap<>();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new empty set of curves.
+     *
+     * @param threshold The exponent above which templates are flagged
+     */
+    public ScalingCurves(double threshold) {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("The scaling exponent threshold must be greater than 0");
+
+        this.threshold = threshold;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Records the measurement of a single class.
+     *
+     * @param template   The template of the class
+     * @param iterations The number of generation iterations
+     * @param sample     The measured sizes and compile time
+     */
+    public void record(String template, int iterations, CompilationSample sample) {
+        samples.computeIfAbsent(template, t -> new TreeMap<>())
+                .computeIfAbsent(iterations, i -> new ArrayList<>())
+                .add(sample);
+    }
+
+    /**
+     * Determines the exponent of the compile time with respect to the
+     * bytecode size of the given template.
+     *
+     * @param template The template
+     * @return the fitted exponent or {@link Double#NaN} if there are not
+     * enough distinct sizes to fit a curve
+     */
+    public double compileTimeExponent(String template) {
+        return exponent(template, true);
+    }
+
+    /**
+     * Determines the exponent of the installed code size with respect to
+     * the bytecode size of the given template.
+     * The installed code size serves as a proxy for the size of the
+     * compiler graph.
+     *
+     * @param template The template
+     * @return the fitted exponent or {@link Double#NaN} if there are not
+     * enough distinct sizes to fit a curve
+     */
+    public double codeSizeExponent(String template) {
+        return exponent(template, false);
+    }
+
+    /**
+     * @param template The template
+     * @return {@code true} if the compile time of the template grows
+     * superlinearly
+     */
+    public boolean isSuperlinear(String template) {
+        return compileTimeExponent(template) > threshold;
+    }
+
+    /**
+     * Describes the measured points and the fitted exponents of all
+     * templates.
+     *
+     * @return a multi-line report
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+
+        samples.forEach((template, points) -> {
+            sb.append(String.format(
+                    "%s: compile time ~ size^%.2f, code size ~ size^%.2f%s%n",
+                    template,
+                    compileTimeExponent(template),
+                    codeSizeExponent(template),
+                    isSuperlinear(template) ? " SUPERLINEAR" : ""
+            ));
+
+            points.forEach((iterations, list) -> sb.append(String.format(
+                    "  -l %-6d classes %-4d bytecode %-8d installed %-8d compile %.3f ms%n",
+                    iterations,
+                    list.size(),
+                    (long) list.stream().mapToLong(CompilationSample::bytecodeSize).average().orElse(0),
+                    (long) list.stream().mapToLong(CompilationSample::installedCodeSize).average().orElse(0),
+                    list.stream().mapToLong(CompilationSample::compileTime).average().orElse(0) / 1e6
+            )));
+        });
+
+        return sb.toString();
+    }
+
+    /**
+     * Fits a line through the logarithms of all samples of a template.
+     *
+     * @param template    The template
+     * @param compileTime {@code true} to fit the compile time,
+     *                    {@code false} to fit the installed code size
+     * @return the slope of the line
+     */
+    private double exponent(String template, boolean compileTime) {
+        TreeMap<Integer, List<CompilationSample>> points = samples.get(template);
+        if (points == null || points.size() < 2)
+            return Double.NaN;
+
+        double n = 0, sx = 0, sy = 0, sxx = 0, sxy = 0;
+        for (List<CompilationSample> list : points.values()) {
+            for (CompilationSample s : list) {
+                long y = compileTime ? s.compileTime() : s.installedCodeSize();
+                if (s.bytecodeSize() <= 0 || y <= 0)
+                    continue;
+
+                double lx = Math.log(s.bytecodeSize());
+                double ly = Math.log(y);
+                n++;
+                sx += lx;
+                sy += ly;
+                sxx += lx * lx;
+                sxy += lx * ly;
+            }
+        }
+
+        double denominator = n * sxx - sx * sx;
+        if (n < 2 || denominator == 0)
+            return Double.NaN;
+
+        return (n * sxy - sx * sy) / denominator;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -1,9 +1,11 @@
 package at.jku.ssw.java.bytecode.generator.tests.results;
 
 import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.hotspot.HotSpotInstalledCode;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class CompilationResult {
     private final Class<?> clazz;
@@ -33,4 +35,31 @@ public class CompilationResult {
     public List<Optional<InstalledCode>> others() {
         return others;
     }
+
+    /**
+     * @return the installed code of all compiled methods
+     */
+    public Stream<InstalledCode> installedCode() {
+        return Stream.concat(
+                Stream.of(main),
+                others.stream()
+                        .filter(Optional::isPresent)
+                        .map(Optional::get)
+        );
+    }
+
+    /**
+     * @param code The installed code
+     * @return the size of the given code in the code cache
+     */
+    public static long sizeOf(InstalledCode code) {
+        return code instanceof HotSpotInstalledCode ? ((HotSpotInstalledCode) code).getSize() : 0;
+    }
+
+    /**
+     * @return the total size of the installed code of all compiled methods
+     */
+    public long installedCodeSize() {
+        return installedCode().mapToLong(CompilationResult::sizeOf).sum();
+    }
 }
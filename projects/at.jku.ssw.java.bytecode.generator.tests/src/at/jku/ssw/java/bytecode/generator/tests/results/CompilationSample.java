@@ -0,0 +1,33 @@
+package at.jku.ssw.java.bytecode.generator.tests.results;
+
+/**
+ * The size and compile time of all methods of a single class.
+ */
+public class CompilationSample {
+    private final long bytecodeSize;
+    private final long installedCodeSize;
+    private final long compileTime;
+
+    /**
+     * @param bytecodeSize      The total bytecode size of all methods
+     * @param installedCodeSize The total size of the installed machine code
+     * @param compileTime       The total compile time in nanoseconds
+     */
+    public CompilationSample(long bytecodeSize, long installedCodeSize, long compileTime) {
+        this.bytecodeSize = bytecodeSize;
+        this.installedCodeSize = installedCodeSize;
+        this.compileTime = compileTime;
+    }
+
+    public long bytecodeSize() {
+        return bytecodeSize;
+    }
+
+    public long installedCodeSize() {
+        return installedCodeSize;
+    }
+
+    public long compileTime() {
+        return compileTime;
+    }
+}
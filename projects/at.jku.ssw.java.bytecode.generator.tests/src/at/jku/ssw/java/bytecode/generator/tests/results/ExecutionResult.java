@@ -1,27 +1,97 @@
 package at.jku.ssw.java.bytecode.generator.tests.results;
 
+import at.jku.ssw.java.bytecode.generator.tests.utils.OutputCapture;
+
+import java.nio.charset.Charset;
+
 public class ExecutionResult {
     private final Object result;
-    private final String output;
+    private final byte[] rawOutput;
     private final Throwable exception;
+    private final long duration;
+    private byte[] digest;
+    private long lines;
+    private String output;
+
+    public ExecutionResult(Object result,
+                           byte[] rawOutput,
+                           byte[] digest,
+                           long lines,
+                           Throwable exception,
+                           long duration) {
+        assert rawOutput != null;
+
+        this.result = result;
+        this.rawOutput = rawOutput;
+        this.digest = digest;
+        this.lines = lines;
+        this.exception = exception;
+        this.duration = duration;
+    }
 
     public ExecutionResult(Object result,
                            String output,
                            Throwable exception) {
-        this.result = result;
+        this(result, output.getBytes(Charset.defaultCharset()), null, 0, exception, 0);
         this.output = output;
-        this.exception = exception;
     }
 
     public Object result() {
         return result;
     }
 
+    /**
+     * @return the output, which is only decoded on demand
+     */
     public String output() {
+        if (output == null)
+            output = new String(rawOutput, Charset.defaultCharset());
         return output;
     }
 
+    public byte[] rawOutput() {
+        return rawOutput;
+    }
+
+    /**
+     * @return the digest of the output, which is computed on demand if it
+     * was not already determined during the execution
+     */
+    public byte[] digest() {
+        if (digest == null) {
+            OutputCapture capture = new OutputCapture();
+            capture.write(rawOutput, 0, rawOutput.length);
+            digest = capture.digest();
+            lines = capture.lines();
+        }
+        return digest;
+    }
+
+    /**
+     * @return the number of line feeds in the output
+     */
+    public long lines() {
+        // ensure that the lines are counted
+        digest();
+        return lines;
+    }
+
     public Throwable exception() {
         return exception;
     }
+
+    /**
+     * @return {@code true} if the execution was stopped since it exceeded
+     * its time or allocation budget
+     */
+    public boolean timedOut() {
+        return exception instanceof ExecutionTimeoutException;
+    }
+
+    /**
+     * @return the execution time in nanoseconds
+     */
+    public long duration() {
+        return duration;
+    }
 }
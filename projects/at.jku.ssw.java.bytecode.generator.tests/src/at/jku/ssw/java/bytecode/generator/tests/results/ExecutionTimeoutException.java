@@ -0,0 +1,19 @@
+package at.jku.ssw.java.bytecode.generator.tests.results;
+
+/**
+ * Describes an execution that was stopped since it exceeded its time or
+ * allocation budget.
+ *
+ * @see at.jku.ssw.java.bytecode.generator.tests.utils.Watchdog
+ */
+public class ExecutionTimeoutException extends RuntimeException {
+
+    /**
+     * Creates a new exception.
+     *
+     * @param message The description of the exceeded budget
+     */
+    public ExecutionTimeoutException(String message) {
+        super(message);
+    }
+}
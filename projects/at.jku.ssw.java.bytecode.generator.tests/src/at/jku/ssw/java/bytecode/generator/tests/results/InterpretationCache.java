@@ -0,0 +1,219 @@
+package at.jku.ssw.java.bytecode.generator.tests.results;
+
+import at.jku.ssw.java.bytecode.generator.tests.utils.OutputCapture;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent, content-addressed cache of interpreted results.
+ * The interpreted output of a class cannot change as long as neither the
+ * class file nor the JVM that interprets it change, therefore the results
+ * are keyed by the digest of the class file and the JVM version.
+ * Each entry consists of a properties file that describes the result
+ * (output digest, line count, exception and duration) and a file that
+ * contains the raw output (which is required to report mismatching lines).
+ * Only the reference interpretation that the compiled results are compared
+ * with is cached. The warmup runs before the optimized compilation always
+ * interpret the class, since their purpose is the profile they produce.
+ * The cache is disabled unless {@link #enable(Path)} is called.
+ */
+public final class InterpretationCache {
+    private InterpretationCache() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(InterpretationCache.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The JVM version that is part of every key.
+     */
+    private static final String JVM_VERSION =
+            System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version");
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The directory that contains the cache entries
+     * (or {@code null} if the cache is disabled).
+     */
+    private static volatile Path directory;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Configuration
+
+    /**
+     * Enables the cache.
+     *
+     * @param directory The directory that contains the cache entries
+     * @throws IOException if the directory cannot be created
+     */
+    public static void enable(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        InterpretationCache.directory = directory;
+    }
+
+    /**
+     * @return {@code true} if interpreted results are cached
+     */
+    public static boolean isEnabled() {
+        return directory != null;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Cache methods
+
+    /**
+     * Looks up the interpreted result of the given class file.
+     *
+     * @param classFile The contents of the class file
+     * @return the cached result or {@code null} if there is no (usable)
+     * entry for the class file
+     */
+    public static ExecutionResult lookup(byte[] classFile) {
+        if (!isEnabled())
+            return null;
+
+        String key = key(classFile);
+        Path entry = directory.resolve(key + ".properties");
+        Path output = directory.resolve(key + ".out");
+
+        if (!Files.exists(entry) || !Files.exists(output))
+            return null;
+
+        try {
+            Properties p = new Properties();
+            try (InputStream in = Files.newInputStream(entry)) {
+                p.load(in);
+            }
+
+            Throwable exception = null;
+            String exceptionType = p.getProperty("exception.type");
+            if (exceptionType != null) {
+                exception = (Throwable) Class.forName(exceptionType)
+                        .getConstructor(String.class)
+                        .newInstance(p.getProperty("exception.message"));
+            }
+
+            return new ExecutionResult(
+                    null,
+                    Files.readAllBytes(output),
+                    decode(p.getProperty("digest")),
+                    Long.parseLong(p.getProperty("lines")),
+                    exception,
+                    Long.parseLong(p.getProperty("duration"))
+            );
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            logger.log(Level.WARNING, "Ignoring invalid cache entry " + entry, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the interpreted result of the given class file.
+     * Results that carry a return value are not cached since the value
+     * cannot be restored. Neither are executions that were stopped, since
+     * they depend on the configured budgets.
+     *
+     * @param classFile The contents of the class file
+     * @param result    The interpreted result
+     */
+    public static void store(byte[] classFile, ExecutionResult result) {
+        if (!isEnabled() || result.result() != null || result.timedOut())
+            return;
+
+        String key = key(classFile);
+
+        Properties p = new Properties();
+        p.setProperty("jvm", JVM_VERSION);
+        p.setProperty("digest", encode(result.digest()));
+        p.setProperty("lines", String.valueOf(result.lines()));
+        p.setProperty("duration", String.valueOf(result.duration()));
+        if (result.exception() != null) {
+            p.setProperty("exception.type", result.exception().getClass().getName());
+            if (result.exception().getMessage() != null)
+                p.setProperty("exception.message", result.exception().getMessage());
+        }
+
+        try {
+            // the output is written first, since an entry is only valid
+            // if both files exist; both are moved into place atomically
+            // to support concurrent workers
+            Path output = Files.createTempFile(directory, key, ".tmp");
+            Files.write(output, result.rawOutput());
+            Files.move(output, directory.resolve(key + ".out"), StandardCopyOption.ATOMIC_MOVE);
+
+            Path entry = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(entry)) {
+                p.store(out, null);
+            }
+            Files.move(entry, directory.resolve(key + ".properties"), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not cache interpreted result", e);
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * Determines the key of the given class file.
+     *
+     * @param classFile The contents of the class file
+     * @return the hexadecimal digest of the class file and the JVM version
+     */
+    private static String key(byte[] classFile) {
+        MessageDigest digest = OutputCapture.newDigest();
+        digest.update(classFile);
+        digest.update(JVM_VERSION.getBytes(StandardCharsets.UTF_8));
+        return encode(digest.digest());
+    }
+
+    /**
+     * @param bytes The bytes to encode
+     * @return the hexadecimal representation of the bytes
+     */
+    private static String encode(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    /**
+     * @param hex The hexadecimal representation
+     * @return the decoded bytes
+     */
+    private static byte[] decode(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        return bytes;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
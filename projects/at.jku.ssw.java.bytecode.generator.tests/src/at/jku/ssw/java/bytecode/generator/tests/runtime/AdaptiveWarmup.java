@@ -0,0 +1,311 @@
+package at.jku.ssw.java.bytecode.generator.tests.runtime;
+
+import jdk.vm.ci.hotspot.HotSpotResolvedJavaMethod;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ProfilingInfo;
+import jdk.vm.ci.runtime.JVMCI;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Decides when the profile of a class is mature enough to compile it with
+ * profiling information.
+ * Between the interpreted warmup runs, the profiling data of all methods
+ * of the class is sampled via JVMCI. The warmup ends once all profiled
+ * methods are mature, once the profile stopped growing or once it holds
+ * at least {@link #MIN_EXECUTIONS} executions and its relative execution
+ * counts and branch probabilities are stable, but after at most
+ * {@link #maxRuns()} runs.
+ * The relative values alone do not suffice, since every run of a
+ * deterministic program adds the same counts and therefore keeps them
+ * stable from the first run on.
+ * Adaptive warmup is disabled unless {@link #enable(int)} is called, in
+ * which case the fixed number of optimization runs only applies to
+ * classes that are not profiled at all.
+ */
+public final class AdaptiveWarmup {
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The minimum number of warmup runs.
+     */
+    private static final int MIN_RUNS = 2;
+
+    /**
+     * The minimum total execution count of all profiled bytecodes before
+     * a stable profile ends the warmup.
+     */
+    static final long MIN_EXECUTIONS = 10_000;
+
+    /**
+     * The number of consecutive stable samples after which the warmup
+     * ends.
+     */
+    private static final int STABLE_SAMPLES = 2;
+
+    /**
+     * The maximum change of the relative execution counts and branch
+     * probabilities between two stable samples.
+     */
+    private static final double TOLERANCE = 0.01;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The maximum number of warmup runs (or {@code 0} if adaptive warmup
+     * is disabled).
+     */
+    private static volatile int maxRuns;
+
+    /**
+     * The methods of the class.
+     */
+    private final List<HotSpotResolvedJavaMethod> methods;
+
+    /**
+     * The profiled bytecode indices of each method
+     * (or {@code null} if the method has no profile yet).
+     */
+    private final int[][] profiled;
+
+    /**
+     * The relative execution counts and branch probabilities of the last
+     * sample (or {@code null} if there was none).
+     */
+    private double[] last;
+
+    /**
+     * The total execution count of all profiled bytecodes at the last
+     * sample (or {@code -1} if there was none).
+     */
+    private long total = -1;
+
+    /**
+     * Whether the total execution count did not grow since the previous
+     * sample.
+     */
+    private boolean stalled;
+
+    /**
+     * The number of consecutive stable samples.
+     */
+    private int stable;
+
+    /**
+     * The number of samples so far.
+     */
+    private int samples;
+
+    /**
+     * Whether all profiled methods were mature at the last sample.
+     */
+    private boolean mature;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Prepares the sampling of the profiles of the given class.
+     *
+     * @param clazz The class that is warmed up
+     */
+    AdaptiveWarmup(Class<?> clazz) {
+        this.methods = methodsOf(clazz);
+        this.profiled = new int[methods.size()][];
+    }
+
+    /**
+     * @param clazz The class
+     * @return all methods, constructors and the class initializer of the
+     * given class that may be profiled
+     */
+    static List<HotSpotResolvedJavaMethod> methodsOf(Class<?> clazz) {
+        MetaAccessProvider metaAccess = JVMCI.getRuntime().getHostJVMCIBackend().getMetaAccess();
+
+        return Stream.concat(
+                Stream.of(
+                        clazz.getDeclaredConstructors(),
+                        clazz.getDeclaredMethods())
+                        .flatMap(Arrays::stream)
+                        .map(metaAccess::lookupJavaMethod),
+                Stream.of(
+                        metaAccess.lookupJavaType(clazz).getClassInitializer()))
+                .filter(Objects::nonNull)
+                .map(HotSpotResolvedJavaMethod.class::cast)
+                .filter(HotSpotResolvedJavaMethod::hasBytecodes)
+                .collect(Collectors.toList());
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Configuration
+
+    /**
+     * Enables the adaptive warmup.
+     *
+     * @param maxRuns The maximum number of warmup runs per class
+     */
+    public static void enable(int maxRuns) {
+        if (maxRuns < MIN_RUNS)
+            throw new IllegalArgumentException("The maximum warmup must at least be " + MIN_RUNS + " runs");
+
+        AdaptiveWarmup.maxRuns = maxRuns;
+    }
+
+    /**
+     * @return {@code true} if the warmup is adaptive
+     */
+    public static boolean isEnabled() {
+        return maxRuns > 0;
+    }
+
+    /**
+     * @return the maximum number of warmup runs per class
+     */
+    public static int maxRuns() {
+        return maxRuns;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Sampling
+
+    /**
+     * Samples the profiles after a warmup run.
+     *
+     * @param fixedRuns The number of runs for classes without any profile
+     * @return {@code true} if the warmup should end
+     */
+    boolean sample(int fixedRuns) {
+        samples++;
+
+        long previous = total;
+        double[] current = snapshot();
+
+        if (current == null) {
+            // the JVM did not profile the class (yet)
+            last = null;
+            total = -1;
+            stable = 0;
+            return samples >= Math.min(fixedRuns, maxRuns);
+        }
+
+        // the run did not add anything to the profile (e.g. since the
+        // methods are no longer interpreted)
+        stalled = previous >= 0 && total <= previous;
+
+        if (last != null && last.length == current.length && maxDifference(last, current) <= TOLERANCE)
+            stable++;
+        else
+            stable = 0;
+
+        last = current;
+
+        return samples >= maxRuns
+                || (samples >= MIN_RUNS
+                && (mature || stalled || (total >= MIN_EXECUTIONS && stable >= STABLE_SAMPLES)));
+    }
+
+    /**
+     * @return {@code true} if the profile of the class was sampled at the
+     * last run (otherwise the warmup fell back to the fixed number of runs)
+     */
+    boolean isProfiled() {
+        return last != null;
+    }
+
+    /**
+     * @return {@code true} if all profiled methods were mature when the
+     * warmup ended
+     */
+    boolean isMature() {
+        return mature;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * Captures the execution count of each profiled bytecode relative to
+     * all execution counts of the class and the branch probabilities.
+     * Also determines the total execution count and whether all profiled
+     * methods are mature.
+     *
+     * @return the sampled values (or {@code null} if no method is profiled)
+     */
+    private double[] snapshot() {
+        long total = 0;
+        int size = 0;
+        boolean allMature = true;
+
+        ProfilingInfo[] infos = new ProfilingInfo[methods.size()];
+        for (int m = 0; m < infos.length; m++) {
+            ProfilingInfo info = methods.get(m).getProfilingInfo();
+            infos[m] = info;
+
+            // the profiled indices are determined once the profile exists
+            if (profiled[m] == null) {
+                int[] bcis = IntStream.range(0, methods.get(m).getCodeSize())
+                        .filter(bci -> info.getExecutionCount(bci) >= 0 || info.getBranchTakenProbability(bci) >= 0)
+                        .toArray();
+                if (bcis.length > 0)
+                    profiled[m] = bcis;
+            }
+
+            if (profiled[m] == null)
+                continue;
+
+            allMature &= info.isMature();
+            size += profiled[m].length;
+            for (int bci : profiled[m])
+                total += Math.max(0, info.getExecutionCount(bci));
+        }
+
+        if (size == 0)
+            return null;
+
+        mature = allMature;
+        this.total = total;
+
+        // two values (relative count and probability) per profiled index
+        double[] values = new double[2 * size];
+        int i = 0;
+        for (int m = 0; m < infos.length; m++) {
+            if (profiled[m] == null)
+                continue;
+
+            for (int bci : profiled[m]) {
+                values[i++] = total > 0 ? Math.max(0, infos[m].getExecutionCount(bci)) / (double) total : 0;
+                values[i++] = infos[m].getBranchTakenProbability(bci);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * @param a The first sample
+     * @param b The second sample
+     * @return the maximum absolute difference of both samples
+     */
+    private static double maxDifference(double[] a, double[] b) {
+        double max = 0;
+        for (int i = 0; i < a.length; i++)
+            max = Math.max(max, Math.abs(a[i] - b[i]));
+        return max;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -1,16 +1,25 @@
 package at.jku.ssw.java.bytecode.generator.tests.runtime;
 
-import at.jku.ssw.java.bytecode.generator.loaders.GeneratedClassLoader;
+import at.jku.ssw.java.bytecode.generator.tests.events.LoadEvent;
+import at.jku.ssw.java.bytecode.generator.tests.loading.ClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.loading.LoaderTracker;
 import at.jku.ssw.java.bytecode.generator.tests.logging.Logging;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Benchmark;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Phase;
 import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
+import at.jku.ssw.java.bytecode.generator.tests.utils.Executor;
 import at.jku.ssw.java.bytecode.generator.tests.utils.StaticFieldGuard;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 /**
  * Base class for all executing classes (e.g. interpretation, compilation)
- * that defines the common properties like the working directory and an
+ * that defines the common properties like the class source and an
  * optional field guard.
  */
 public abstract class ClassRunner implements Logging {
@@ -19,9 +28,9 @@ public abstract class ClassRunner implements Logging {
     // region Properties
 
     /**
-     * The working directory where the class files are located.
+     * The source from which the class files are loaded.
      */
-    private final Path workingDirectory;
+    private final ClassSource classes;
 
     /**
      * Optional field guard that is either verified on each run or set.
@@ -32,7 +41,26 @@ public abstract class ClassRunner implements Logging {
      * The current class loader instance.
      * This must be mutable since the class loader is reset for certain runs.
      */
-    private GeneratedClassLoader classLoader;
+    private ClassLoader classLoader;
+
+    /**
+     * The name of the class that was last loaded by the current class
+     * loader (or {@code null} if none was loaded yet).
+     */
+    private String loadedClass;
+
+    /**
+     * The output file and the output of the last call that are kept
+     * until {@link #saveOutput()} is called if the class source is not
+     * persistent.
+     */
+    private Path outFile;
+    private byte[] output;
+
+    /**
+     * The median execution time of the last call if it was benchmarked.
+     */
+    private long executionTime;
 
     // endregion
     //-------------------------------------------------------------------------
@@ -41,21 +69,19 @@ public abstract class ClassRunner implements Logging {
     /**
      * Creates a new class.
      *
-     * @param workingDirectory The directory from which potential class files
-     *                         are loaded
-     * @param guard            The guard that keeps track of static field
-     *                         values
+     * @param classes The source from which potential class files are loaded
+     * @param guard   The guard that keeps track of static field values
      */
-    protected ClassRunner(Path workingDirectory, StaticFieldGuard guard) {
-        this.workingDirectory = workingDirectory;
+    protected ClassRunner(ClassSource classes, StaticFieldGuard guard) {
+        this.classes = classes;
         this.guard = guard;
     }
 
     /**
-     * @see #ClassRunner(Path, StaticFieldGuard)
+     * @see #ClassRunner(ClassSource, StaticFieldGuard)
      */
-    protected ClassRunner(Path workingDirectory) {
-        this(workingDirectory, null);
+    protected ClassRunner(ClassSource classes) {
+        this(classes, null);
     }
 
     // endregion
@@ -63,11 +89,15 @@ public abstract class ClassRunner implements Logging {
     // region Concrete methods / utilities
 
     /**
-     * Resets the class loader and forces a garbage collection.
+     * Resets the class loader. The previous loader is tracked until it is
+     * collected, which is only forced once too many classes are loaded.
+     *
+     * @see LoaderTracker
      */
     public final void unload() {
-        classLoader = new GeneratedClassLoader(workingDirectory.toString());
-        System.gc();
+        LoaderTracker.retire(classLoader, loadedClass);
+        classLoader = classes.newLoader();
+        loadedClass = null;
     }
 
     /**
@@ -80,14 +110,24 @@ public abstract class ClassRunner implements Logging {
      *                                a valid class file
      */
     protected final Class<?> reloadClass(String className) throws ClassNotFoundException {
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        final long start = System.nanoTime();
+
         unload();
-        return classLoader.loadClass(className);
+        Class<?> clazz = classLoader.loadClass(className);
+        loadedClass = className;
+
+        Metrics.record(Metrics.templateOf(className), Phase.LOAD, start);
+        event.className = className;
+        event.commit();
+        return clazz;
     }
 
     /**
      * Calls this class runner to execute the class that is identified
-     * by the given name and whose class files should exist in the working
-     * directory.
+     * by the given name and whose class files should be available in the
+     * class source.
      *
      * @param className The class that is run
      * @return the result of the execution of the class
@@ -105,15 +145,56 @@ public abstract class ClassRunner implements Logging {
 
         ExecutionResult result = call(clazz);
 
+        outFile = workingDirectory().resolve(outName(clazz));
+        output = result.rawOutput();
+
         // write the output to another file
-        Files.write(
-                workingDirectory.resolve(outName(clazz)),
-                result.output().getBytes()
-        );
+        // (in-memory classes only do so on demand)
+        if (classes.isPersistent())
+            saveOutput();
 
         return result;
     }
 
+    /**
+     * Writes the output of the last call to its output file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public final void saveOutput() throws IOException {
+        if (outFile != null)
+            Files.write(outFile, output);
+    }
+
+    /**
+     * Measures the median execution time of the given task if the
+     * {@link Benchmark} is enabled. The static fields of the class are
+     * reset to the given initial state before each run, so that every run
+     * starts from the same state as the captured execution.
+     * Runs after which the given validity check fails are discarded;
+     * if no run remains, the execution time is {@code 0}.
+     *
+     * @param clazz   The class that is executed
+     * @param initial The static state of the class before its first run
+     *                (see {@link StaticFieldGuard#snapshot(Class)})
+     * @param task    The task that executes the class
+     * @param valid   The check whether a run was valid
+     */
+    protected final void benchmark(Class<?> clazz,
+                                   StaticFieldGuard initial,
+                                   Supplier<Object> task,
+                                   BooleanSupplier valid) {
+        if (!Benchmark.isEnabled())
+            return;
+
+        info(clazz, "Benchmarking");
+        long[] times = Executor.time(task, () -> initial.restore(clazz), valid, Benchmark.runs());
+        if (times.length < Benchmark.runs())
+            info(clazz, "Discarded %d of %d benchmark runs", Benchmark.runs() - times.length, Benchmark.runs());
+
+        executionTime = times.length == 0 ? 0 : Benchmark.median(times);
+    }
+
     // endregion
     //-------------------------------------------------------------------------
     // region Abstract methods
@@ -146,7 +227,14 @@ public abstract class ClassRunner implements Logging {
      * @return the current working directory
      */
     public Path workingDirectory() {
-        return workingDirectory;
+        return classes.workingDirectory();
+    }
+
+    /**
+     * @return the source from which classes are loaded
+     */
+    public ClassSource classes() {
+        return classes;
     }
 
     /**
@@ -156,6 +244,14 @@ public abstract class ClassRunner implements Logging {
         return guard;
     }
 
+    /**
+     * @return the median execution time of the last call in nanoseconds
+     * (or {@code 0} if it was not benchmarked)
+     */
+    public long executionTime() {
+        return executionTime;
+    }
+
     /**
      * Resets the current guard (if any).
      */
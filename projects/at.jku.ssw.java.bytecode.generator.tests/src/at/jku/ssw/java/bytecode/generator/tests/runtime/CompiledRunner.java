@@ -1,12 +1,19 @@
 package at.jku.ssw.java.bytecode.generator.tests.runtime;
 
+import at.jku.ssw.java.bytecode.generator.tests.events.CompileMethodEvent;
+import at.jku.ssw.java.bytecode.generator.tests.loading.ClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Benchmark;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.CodeCacheUsage;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.CompileTimeOutliers;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Phase;
 import at.jku.ssw.java.bytecode.generator.tests.results.CompilationResult;
 import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
-import at.jku.ssw.java.bytecode.generator.tests.utils.Executor;
 import at.jku.ssw.java.bytecode.generator.tests.utils.StaticFieldGuard;
 import jdk.vm.ci.code.InstalledCode;
 import jdk.vm.ci.code.InvalidInstalledCodeException;
 import jdk.vm.ci.hotspot.HotSpotCompilationRequest;
+import jdk.vm.ci.hotspot.HotSpotInstalledCode;
 import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
 import jdk.vm.ci.hotspot.HotSpotResolvedJavaMethod;
 import jdk.vm.ci.hotspot.HotSpotResolvedObjectType;
@@ -21,15 +28,18 @@ import org.graalvm.compiler.hotspot.HotSpotGraalCompiler;
 import org.graalvm.compiler.options.OptionValues;
 
 import java.io.IOException;
-import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static at.jku.ssw.java.bytecode.generator.tests.utils.Executor.captureIO;
 import static at.jku.ssw.java.bytecode.generator.tests.utils.Stringifier.format;
 
 /**
@@ -60,6 +70,11 @@ public class CompiledRunner extends ClassRunner {
      */
     private final HotSpotGraalCompiler compiler;
 
+    /**
+     * The executor that runs the compilations of the individual methods.
+     */
+    private final Executor compilations;
+
     // endregion
     //-------------------------------------------------------------------------
     // region Initialization
@@ -67,28 +82,44 @@ public class CompiledRunner extends ClassRunner {
     /**
      * Initializes a new compiler wrapper.
      *
-     * @param workingDirectory The working directory from which class files
-     *                         are loaded
+     * @param classes          The source from which class files are loaded
      * @param guard            Optional field guard
      * @param runtime          The runtime reference
      * @param compiler         The Graal compiler reference
+     * @param compilations     The executor that compiles the individual
+     *                         methods of a class (possibly concurrently)
      */
-    public CompiledRunner(Path workingDirectory,
+    public CompiledRunner(ClassSource classes,
                           StaticFieldGuard guard,
                           HotSpotJVMCIRuntime runtime,
-                          HotSpotGraalCompiler compiler) {
-        super(workingDirectory, guard);
+                          HotSpotGraalCompiler compiler,
+                          Executor compilations) {
+        super(classes, guard);
         this.runtime = runtime;
         this.compiler = compiler;
+        this.compilations = compilations;
     }
 
     /**
-     * @see #CompiledRunner(Path, StaticFieldGuard, HotSpotJVMCIRuntime, HotSpotGraalCompiler)
+     * Initializes a new compiler wrapper that compiles the methods
+     * of a class one after another on the calling thread.
+     *
+     * @see #CompiledRunner(ClassSource, StaticFieldGuard, HotSpotJVMCIRuntime, HotSpotGraalCompiler, Executor)
      */
-    public CompiledRunner(Path workingDirectory,
+    public CompiledRunner(ClassSource classes,
+                          StaticFieldGuard guard,
                           HotSpotJVMCIRuntime runtime,
                           HotSpotGraalCompiler compiler) {
-        this(workingDirectory, null, runtime, compiler);
+        this(classes, guard, runtime, compiler, Runnable::run);
+    }
+
+    /**
+     * @see #CompiledRunner(ClassSource, StaticFieldGuard, HotSpotJVMCIRuntime, HotSpotGraalCompiler)
+     */
+    public CompiledRunner(ClassSource classes,
+                          HotSpotJVMCIRuntime runtime,
+                          HotSpotGraalCompiler compiler) {
+        this(classes, null, runtime, compiler);
     }
 
     // endregion
@@ -97,6 +128,10 @@ public class CompiledRunner extends ClassRunner {
 
     /**
      * Executes the given compiled result and captures any output.
+     * If the benchmark is enabled, the installed code is then executed
+     * repeatedly to determine its median execution time. Runs after which
+     * the installed code was invalidated (e.g. by a deoptimization) do not
+     * measure the compiled code and are discarded.
      *
      * @param compiled The compiled class
      * @return the result of the execution
@@ -105,16 +140,22 @@ public class CompiledRunner extends ClassRunner {
     protected final ExecutionResult execute(CompilationResult compiled) throws IOException {
         info(compiled.clazz(), "Executing compiled code");
         try {
-            return Executor.captureIO(
-                    () -> {
-                        try {
-                            return compiled.main().executeVarargs((Object) new String[0]);
-                        } catch (InvalidInstalledCodeException e) {
-                            e.printStackTrace();
-                            return null;
-                        }
-                    }
-            );
+            Supplier<Object> main = () -> {
+                try {
+                    return compiled.main().executeVarargs((Object) new String[0]);
+                } catch (InvalidInstalledCodeException e) {
+                    e.printStackTrace();
+                    return null;
+                }
+            };
+
+            StaticFieldGuard initial = Benchmark.isEnabled() ? StaticFieldGuard.snapshot(compiled.clazz()) : null;
+
+            ExecutionResult result = captureIO(compiled.clazz(), executionPhase(), main);
+
+            benchmark(compiled.clazz(), initial, main, () -> compiled.main().isValid());
+
+            return result;
         } catch (Throwable t) {
             fail(compiled.clazz(), t, "HotSpot interpretation failed");
             throw t;
@@ -123,6 +164,8 @@ public class CompiledRunner extends ClassRunner {
 
     /**
      * Compiles all methods of the given class.
+     * The individual methods are compiled by the compilation executor
+     * and joined afterwards.
      *
      * @param clazz            The class whose methods are compiled
      * @param useProfilingInfo Flag that indicates whether optimization
@@ -151,19 +194,18 @@ public class CompiledRunner extends ClassRunner {
                 throw t;
             }
 
-            // retrieve the compiled code of the main method
-            // assuming that it is not null
-            InstalledCode main = compile(
-                    clazz,
-                    (HotSpotResolvedJavaMethod) metaAccess.lookupJavaMethod(
-                            clazz.getMethod("main", String[].class)
-                    ),
-                    useProfilingInfo
-            ).orElseThrow(() -> new AssertionError("Main method unexpectedly not installed"));
+            // request the compiled code of the main method
+            HotSpotResolvedJavaMethod mainMethod = (HotSpotResolvedJavaMethod) metaAccess.lookupJavaMethod(
+                    clazz.getMethod("main", String[].class)
+            );
+            CompletableFuture<Optional<InstalledCode>> main = CompletableFuture.supplyAsync(
+                    () -> compile(clazz, mainMethod, useProfilingInfo),
+                    compilations
+            );
 
             // concat all methods and constructors and compile them
             // here also class initializers are included
-            List<Optional<InstalledCode>> others = Stream.concat(
+            List<CompletableFuture<Optional<InstalledCode>>> others = Stream.concat(
                     Stream.of(
                             clazz.getDeclaredConstructors(),
                             clazz.getDeclaredMethods())
@@ -173,10 +215,21 @@ public class CompiledRunner extends ClassRunner {
                             metaAccess.lookupJavaType(clazz).getClassInitializer()))
                     .map(HotSpotResolvedJavaMethod.class::cast)
                     .filter(Objects::nonNull)
-                    .map(m -> compile(clazz, m, useProfilingInfo))
+                    .map(m -> CompletableFuture.supplyAsync(
+                            () -> compile(clazz, m, useProfilingInfo),
+                            compilations
+                    ))
                     .collect(Collectors.toList());
 
-            return new CompilationResult(clazz, main, others);
+            // join all compilations
+            // assuming that the main method is not null
+            return new CompilationResult(
+                    clazz,
+                    main.join().orElseThrow(() -> new AssertionError("Main method unexpectedly not installed")),
+                    others.stream()
+                            .map(CompletableFuture::join)
+                            .collect(Collectors.toList())
+            );
         } catch (Throwable t) {
             fail(clazz, t, "Error in compilation %s");
             throw t;
@@ -199,6 +252,9 @@ public class CompiledRunner extends ClassRunner {
 
         info(clazz, "Compiling method %s", format(method));
 
+        CompileMethodEvent event = new CompileMethodEvent();
+        event.begin();
+
         try {
             int entryBCI = JVMCICompiler.INVOCATION_ENTRY_BCI;
             HotSpotCompilationRequest request = new HotSpotCompilationRequest(method, entryBCI, 0L);
@@ -210,16 +266,110 @@ public class CompiledRunner extends ClassRunner {
                     true,               // install as default since code is invalidated after run anyways
                     new OptionValues(EconomicMap.create())
             );
+            final long start = System.nanoTime();
             task.runCompilation();
+            long elapsed = Metrics.record(Metrics.templateOf(clazz), Phase.COMPILE, start);
+
+            checkCompileTime(clazz, method, elapsed);
 
-            return Optional.ofNullable(task.getInstalledCode());
+            HotSpotInstalledCode installed = task.getInstalledCode();
+            Metrics.recordCompilation(
+                    Metrics.templateOf(clazz),
+                    method.getCodeSize(),
+                    installed == null ? 0 : installed.getSize()
+            );
+            if (installed != null)
+                CodeCacheUsage.installed(clazz.getName(), installed.getSize());
+            event.end();
+            if (event.shouldCommit()) {
+                event.installed = installed != null;
+                event.installedCodeSize = installed == null ? 0 : installed.getSize();
+            }
+
+            return Optional.ofNullable(installed);
         } catch (Throwable t) {
             // Catch everything and print a message
             fail(clazz, t, "Error compiling method: %s", format(method));
             return Optional.empty();
+        } finally {
+            if (event.shouldCommit()) {
+                // only describe the method if the event is recorded
+                event.method = format(method);
+                event.bytecodeSize = method.getCodeSize();
+                event.profiled = useProfilingInfo;
+                event.commit();
+            }
         }
     }
 
+    /**
+     * Invalidates all installed code of the given compilation result and
+     * accounts for the released code cache space.
+     *
+     * @param compiled The compiled class
+     */
+    protected static void invalidate(CompilationResult compiled) {
+        String className = compiled.clazz().getName();
+        compiled.installedCode().forEach(code -> {
+            // the size is no longer available once the code is released
+            long size = CompilationResult.sizeOf(code);
+            code.invalidate();
+            CodeCacheUsage.invalidated(className, size);
+        });
+    }
+
+    /**
+     * Only compiles all methods of the class that is identified by the given
+     * name, both without and with profiling information, and discards the
+     * installed code again.
+     * The class is neither executed nor are any results compared.
+     *
+     * @param className The name of the class
+     * @throws Exception if the class cannot be loaded or compiled
+     */
+    public final void compileOnly(String className) throws Exception {
+        Class<?> clazz = reloadClass(className);
+
+        invalidate(compile(clazz, false));
+        invalidate(compile(clazz, true));
+    }
+
+    /**
+     * Checks whether the compile time of the given method is an outlier
+     * and if so, keeps the class file.
+     *
+     * @param clazz   The class that contains the method
+     * @param method  The compiled method
+     * @param elapsed The compile time in nanoseconds
+     */
+    private void checkCompileTime(Class<?> clazz, HotSpotResolvedJavaMethod method, long elapsed) {
+        int bytecodeSize = method.getCodeSize();
+        double ratio = CompileTimeOutliers.check(Metrics.templateOf(clazz), bytecodeSize, elapsed);
+        if (ratio == 0)
+            return;
+
+        try {
+            CompileTimeOutliers.store(
+                    clazz.getName(),
+                    classes().bytes(clazz.getName()),
+                    format(method),
+                    bytecodeSize,
+                    elapsed,
+                    ratio
+            );
+        } catch (IOException e) {
+            fail(clazz, e, "Could not store compile time outlier %s", format(method));
+        }
+    }
+
+    /**
+     * @return the phase under which the execution of the compiled code
+     * is recorded
+     */
+    protected Phase executionPhase() {
+        return Phase.EXECUTE_COMPILED;
+    }
+
     // endregion
     //-------------------------------------------------------------------------
     // region Overridden methods
@@ -230,16 +380,11 @@ public class CompiledRunner extends ClassRunner {
     @Override
     protected ExecutionResult call(Class<?> clazz) throws Exception {
         CompilationResult compiled = compile(clazz, false);
-        ExecutionResult compiledResult = execute(compiled);
-
-        // invalidate the compiled code
-        compiled.main().invalidate();
-        compiled.others().stream()
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .forEach(InstalledCode::invalidate);
-
-        return compiledResult;
+        try {
+            return execute(compiled);
+        } finally {
+            invalidate(compiled);
+        }
     }
 
     /**
@@ -1,12 +1,16 @@
 package at.jku.ssw.java.bytecode.generator.tests.runtime;
 
+import at.jku.ssw.java.bytecode.generator.tests.loading.ClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Benchmark;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Phase;
 import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
+import at.jku.ssw.java.bytecode.generator.tests.results.InterpretationCache;
 import at.jku.ssw.java.bytecode.generator.tests.utils.Executor;
 import at.jku.ssw.java.bytecode.generator.tests.utils.StaticFieldGuard;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.nio.file.Path;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import static at.jku.ssw.java.bytecode.generator.tests.utils.ReflectUtils.mainMethodOf;
@@ -31,19 +35,18 @@ public class InterpretationRunner extends ClassRunner {
     /**
      * Creates a new interpreter wrapper.
      *
-     * @param workingDirectory The working directory where class files are
-     *                         loaded from
-     * @param guard            Optional field guard
+     * @param classes The source from which class files are loaded
+     * @param guard   Optional field guard
      */
-    public InterpretationRunner(Path workingDirectory, StaticFieldGuard guard) {
-        super(workingDirectory, guard);
+    public InterpretationRunner(ClassSource classes, StaticFieldGuard guard) {
+        super(classes, guard);
     }
 
     /**
-     * @see #InterpretationRunner(Path, StaticFieldGuard)
+     * @see #InterpretationRunner(ClassSource, StaticFieldGuard)
      */
-    public InterpretationRunner(Path workingDirectory) {
-        super(workingDirectory);
+    public InterpretationRunner(ClassSource classes) {
+        super(classes);
     }
 
     // endregion
@@ -55,26 +58,83 @@ public class InterpretationRunner extends ClassRunner {
      */
     @Override
     protected final ExecutionResult call(Class<?> clazz) throws IOException {
+        StaticFieldGuard initial = Benchmark.isEnabled() ? StaticFieldGuard.snapshot(clazz) : null;
+
+        ExecutionResult result = interpretCached(clazz);
+
+        // the duration of the result includes the class initialization and
+        // the output capture, therefore the interpreter is timed separately
+        benchmark(clazz, initial, main(clazz), () -> true);
+
+        return result;
+    }
+
+    /**
+     * Interprets the given class unless its result is already available
+     * in the {@link InterpretationCache}.
+     *
+     * @param clazz The class that is interpreted
+     * @return the result of the execution
+     * @throws IOException if the output cannot be captured
+     */
+    private ExecutionResult interpretCached(Class<?> clazz) throws IOException {
+        // the interpreted result only depends on the class file
+        // (and the JVM), therefore it may be reused from earlier runs
+        byte[] classFile = null;
+        if (InterpretationCache.isEnabled()) {
+            classFile = classes().bytes(clazz.getName());
+            ExecutionResult cached = InterpretationCache.lookup(classFile);
+            if (cached != null) {
+                info(clazz, "Using cached interpreted result");
+                return cached;
+            }
+        }
+
+        ExecutionResult result = interpret(clazz);
+
+        if (classFile != null)
+            InterpretationCache.store(classFile, result);
+
+        return result;
+    }
+
+    /**
+     * Interprets the given class without consulting the
+     * {@link InterpretationCache} (e.g. to gather profiling information).
+     *
+     * @param clazz The class that is interpreted
+     * @return the result of the execution
+     * @throws IOException if the output cannot be captured
+     */
+    final ExecutionResult interpret(Class<?> clazz) throws IOException {
         info(clazz, "Interpreting code");
         try {
-            return Executor.captureIO(
-                    () -> mainMethodOf(clazz)
-                            .map(main -> {
-                                try {
-                                    return main.invoke(null, (Object) new String[0]);
-                                } catch (IllegalAccessException | InvocationTargetException e) {
-                                    e.printStackTrace();
-                                    return null;
-                                }
-                            })
-                            .orElse(null)
-            );
+            return Executor.captureIO(clazz, Phase.INTERPRET, main(clazz));
         } catch (Throwable t) {
             fail(clazz, t, "HotSpot interpretation failed");
             throw t;
         }
     }
 
+    /**
+     * Creates a task that invokes the main method of the given class.
+     *
+     * @param clazz The class whose main method is invoked
+     * @return the task that returns the result of the main method
+     */
+    private static Supplier<Object> main(Class<?> clazz) {
+        return () -> mainMethodOf(clazz)
+                .map(main -> {
+                    try {
+                        return main.invoke(null, (Object) new String[0]);
+                    } catch (IllegalAccessException | InvocationTargetException e) {
+                        e.printStackTrace();
+                        return null;
+                    }
+                })
+                .orElse(null);
+    }
+
     /**
      * {@inheritDoc}
      */
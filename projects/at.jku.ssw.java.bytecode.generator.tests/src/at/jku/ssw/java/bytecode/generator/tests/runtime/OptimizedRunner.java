@@ -1,5 +1,8 @@
 package at.jku.ssw.java.bytecode.generator.tests.runtime;
 
+import at.jku.ssw.java.bytecode.generator.tests.loading.ClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Phase;
 import at.jku.ssw.java.bytecode.generator.tests.results.CompilationResult;
 import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
 import at.jku.ssw.java.bytecode.generator.tests.utils.StaticFieldGuard;
@@ -10,6 +13,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
 /**
@@ -38,6 +42,8 @@ public class OptimizedRunner extends CompiledRunner {
 
     /**
      * The interpreter that is used to gather optimization information.
+     * It is only used via {@link InterpretationRunner#interpret(Class)},
+     * since a cached result would not produce any profile.
      */
     private final InterpretationRunner interpreter;
 
@@ -48,32 +54,48 @@ public class OptimizedRunner extends CompiledRunner {
     /**
      * Initializes a new optimizer.
      *
-     * @param workingDirectory The working directory from which class files
-     *                         are loaded
+     * @param classes          The source from which class files are loaded
      * @param guard            Optional field guard
      * @param runtime          The runtime reference
      * @param compiler         The compiler reference
      * @param optimizationRuns The number of optimization runs that should
      *                         occur
+     * @param compilations     The executor that compiles the individual
+     *                         methods of a class (possibly concurrently)
      */
-    public OptimizedRunner(Path workingDirectory,
+    public OptimizedRunner(ClassSource classes,
                            StaticFieldGuard guard,
                            HotSpotJVMCIRuntime runtime,
                            HotSpotGraalCompiler compiler,
-                           int optimizationRuns) {
-        super(workingDirectory, guard, runtime, compiler);
+                           int optimizationRuns,
+                           Executor compilations) {
+        super(classes, guard, runtime, compiler, compilations);
         this.optimizationRuns = optimizationRuns;
-        interpreter = new InterpretationRunner(workingDirectory, guard);
+        interpreter = new InterpretationRunner(classes, guard);
     }
 
     /**
-     * @see #OptimizedRunner(Path, StaticFieldGuard, HotSpotJVMCIRuntime, HotSpotGraalCompiler, int)
+     * Initializes a new optimizer that compiles the methods of a class
+     * one after another on the calling thread.
+     *
+     * @see #OptimizedRunner(ClassSource, StaticFieldGuard, HotSpotJVMCIRuntime, HotSpotGraalCompiler, int, Executor)
      */
-    public OptimizedRunner(Path workingDirectory,
+    public OptimizedRunner(ClassSource classes,
+                           StaticFieldGuard guard,
                            HotSpotJVMCIRuntime runtime,
                            HotSpotGraalCompiler compiler,
                            int optimizationRuns) {
-        this(workingDirectory, null, runtime, compiler, optimizationRuns);
+        this(classes, guard, runtime, compiler, optimizationRuns, Runnable::run);
+    }
+
+    /**
+     * @see #OptimizedRunner(ClassSource, StaticFieldGuard, HotSpotJVMCIRuntime, HotSpotGraalCompiler, int)
+     */
+    public OptimizedRunner(ClassSource classes,
+                           HotSpotJVMCIRuntime runtime,
+                           HotSpotGraalCompiler compiler,
+                           int optimizationRuns) {
+        this(classes, null, runtime, compiler, optimizationRuns);
     }
 
     // endregion
@@ -82,20 +104,115 @@ public class OptimizedRunner extends CompiledRunner {
 
     /**
      * Gathers information about the given class by interpreting it
-     * a number of times.
+     * a number of times. With {@link AdaptiveWarmup}, the interpretation
+     * stops as soon as the profile of the class is mature.
+     * A {@link RecordedProfile} of the class determines the number of runs
+     * instead (if it is replayed) and is verified afterwards.
      *
      * @param clazz The class that should be analyzed
      * @return a list of all results
      * @throws IOException if the class cannot be loaded
      */
     private List<ExecutionResult> optimize(Class<?> clazz) throws IOException {
+        if (!RecordedProfile.isReplaying() && !RecordedProfile.isRecording())
+            return warmup(clazz);
+
+        Path profileFile = workingDirectory().resolve(clazz.getName() + RecordedProfile.EXTENSION);
+        byte[] digest = RecordedProfile.digest(classes().bytes(clazz.getName()));
+        RecordedProfile recorded = RecordedProfile.isReplaying() ? RecordedProfile.read(profileFile, digest) : null;
+
+        if (recorded != null)
+            return replay(clazz, digest, recorded);
+
+        List<ExecutionResult> r = warmup(clazz);
+
+        if (RecordedProfile.isRecording())
+            RecordedProfile.capture(clazz, digest, r.size()).write(profileFile);
+
+        return r;
+    }
+
+    /**
+     * Repeats the warmup that produced the given profile and reports any
+     * difference between the recorded and the resulting profile.
+     *
+     * @param clazz    The class that should be analyzed
+     * @param digest   The digest of the class file
+     * @param recorded The recorded profile of the class
+     * @return a list of all results
+     * @throws IOException if the class cannot be loaded
+     */
+    private List<ExecutionResult> replay(Class<?> clazz, byte[] digest, RecordedProfile recorded) throws IOException {
         List<ExecutionResult> r = new ArrayList<>();
-        for (int i = 0; i < optimizationRuns; i++) {
-            r.add(interpreter.call(clazz));
+        for (int i = 0; i < recorded.runs(); i++) {
+            r.add(interpreter.interpret(clazz));
         }
+
+        String difference = recorded.compare(RecordedProfile.capture(clazz, digest, r.size()));
+        Metrics.profileReplayed(difference == null);
+        if (difference != null)
+            logger.warning(clazz.getName() + " - Profile differs from the recorded one: " + difference);
+
         return r;
     }
 
+    /**
+     * Interprets the given class either a fixed number of times or until
+     * its profile is mature.
+     *
+     * @param clazz The class that should be analyzed
+     * @return a list of all results
+     * @throws IOException if the class cannot be loaded
+     */
+    private List<ExecutionResult> warmup(Class<?> clazz) throws IOException {
+        List<ExecutionResult> r = new ArrayList<>();
+
+        if (!AdaptiveWarmup.isEnabled()) {
+            for (int i = 0; i < optimizationRuns; i++) {
+                r.add(interpreter.interpret(clazz));
+            }
+            return r;
+        }
+
+        AdaptiveWarmup warmup = new AdaptiveWarmup(clazz);
+        do {
+            r.add(interpreter.interpret(clazz));
+        } while (!warmup.sample(optimizationRuns));
+
+        if (warmup.isProfiled())
+            info(clazz, "Warmed up in %d runs%s", r.size(), warmup.isMature() ? " (mature)" : "");
+        else
+            info(clazz, "Not profiled, warmed up in %d fixed runs", r.size());
+
+        Metrics.recordWarmup(Metrics.templateOf(clazz), r.size(), warmup.isProfiled(), warmup.isMature());
+        return r;
+    }
+
+    /**
+     * Warms up the given class and compiles it using the gathered profile.
+     * The warmed up class itself is compiled, since a reloaded class would
+     * not have any profile. Instead, its static fields are reset to their
+     * state before the warmup, so that the optimized execution starts from
+     * the same state as the interpreted one (only the contents of
+     * non-array objects in final fields cannot be reset).
+     *
+     * @param clazz The class that should be optimized
+     * @return the result of the optimized compilation
+     * @throws Exception if the class cannot be loaded or compiled
+     */
+    final CompilationResult optimizeAndCompile(Class<?> clazz) throws Exception {
+        StaticFieldGuard initial = StaticFieldGuard.snapshot(clazz);
+
+        // performs a number of optimization runs
+        optimize(clazz);
+
+        // reset the static fields that the optimization runs modified
+        initial.restore(clazz);
+
+        // finally compile the class using the gathered profile
+        return compile(clazz, true);
+    }
+
     // endregion
     //-------------------------------------------------------------------------
     // region Overridden methods
@@ -105,16 +222,20 @@ public class OptimizedRunner extends CompiledRunner {
      */
     @Override
     protected ExecutionResult call(Class<?> clazz) throws Exception {
-        // performs a number of optimization runs
-        @SuppressWarnings("unused")
-        List<ExecutionResult> results = optimize(clazz);
-
-        // reset the class again to prevent static fields from being modified
-        clazz = reloadClass(clazz.getName());
+        CompilationResult optimized = optimizeAndCompile(clazz);
+        try {
+            return execute(optimized);
+        } finally {
+            invalidate(optimized);
+        }
+    }
 
-        // finally compile the result using optimization information
-        CompilationResult optimized = compile(clazz, true);
-        return execute(optimized);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Phase executionPhase() {
+        return Phase.EXECUTE_OPTIMIZED;
     }
 
     /**
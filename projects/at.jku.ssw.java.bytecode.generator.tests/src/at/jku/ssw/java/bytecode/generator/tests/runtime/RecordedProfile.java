@@ -0,0 +1,402 @@
+package at.jku.ssw.java.bytecode.generator.tests.runtime;
+
+import at.jku.ssw.java.bytecode.generator.tests.utils.OutputCapture;
+import jdk.vm.ci.hotspot.HotSpotResolvedJavaMethod;
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.ProfilingInfo;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static at.jku.ssw.java.bytecode.generator.tests.utils.Stringifier.format;
+
+/**
+ * The profile of a class after its warmup, i.e. the execution counts,
+ * branch probabilities and type profiles of each profiled bytecode of its
+ * methods, and the number of warmup runs that produced it.
+ * The profile is stored in a compact binary file next to the class file,
+ * so that later optimized compilations of the class (e.g. with another
+ * compiler build) reproduce the same warmup and verify that the compiler
+ * sees the same profile. Replaying does not skip the warmup, since JVMCI
+ * cannot write profiling data into the VM. The file also contains the SHA-256 digest of the
+ * class file, so that a profile is ignored once the class file changed
+ * (e.g. since another class of the same name was generated).
+ * Recording and replaying is disabled unless {@link #configure(boolean, boolean)}
+ * is called.
+ */
+public final class RecordedProfile {
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(RecordedProfile.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The file extension of recorded profiles.
+     */
+    public static final String EXTENSION = ".profile";
+
+    /**
+     * The marker at the start of each profile file.
+     */
+    private static final int MAGIC = 0x4A425046;
+
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The maximum relative difference of execution counts and the maximum
+     * absolute difference of probabilities of equal profiles.
+     */
+    private static final double TOLERANCE = 0.01;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Nested types
+
+    /**
+     * The profile of a single bytecode.
+     */
+    static final class Entry {
+
+        /**
+         * The execution count (or {@code -1} if it is not profiled).
+         */
+        private final int count;
+
+        /**
+         * The probability that the branch is taken
+         * (or {@code -1} if it is not a profiled branch).
+         */
+        private final double branch;
+
+        /**
+         * The probabilities of the receiver types identified by their names.
+         */
+        private final Map<String, Double> types;
+
+        /**
+         * The probability of types that were not recorded.
+         */
+        private final double notRecorded;
+
+        /**
+         * Creates a new entry.
+         *
+         * @param count       The execution count
+         * @param branch      The branch probability
+         * @param types       The type probabilities
+         * @param notRecorded The probability of types that were not recorded
+         */
+        Entry(int count, double branch, Map<String, Double> types, double notRecorded) {
+            this.count = count;
+            this.branch = branch;
+            this.types = types;
+            this.notRecorded = notRecorded;
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * Whether profiles are recorded after the warmup.
+     */
+    private static volatile boolean recording;
+
+    /**
+     * Whether recorded profiles replace the warmup.
+     */
+    private static volatile boolean replaying;
+
+    /**
+     * The digest of the class file that the profile belongs to.
+     */
+    private final byte[] digest;
+
+    /**
+     * The number of warmup runs that produced the profile.
+     */
+    private final int runs;
+
+    /**
+     * The profiled bytecodes by their index identified by the method.
+     */
+    private final Map<String, Map<Integer, Entry>> methods;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new profile.
+     *
+     * @param digest  The digest of the class file
+     * @param runs    The number of warmup runs that produced the profile
+     * @param methods The profiled bytecodes of each method
+     */
+    RecordedProfile(byte[] digest, int runs, Map<String, Map<Integer, Entry>> methods) {
+        this.digest = digest;
+        this.runs = runs;
+        this.methods = methods;
+    }
+
+    /**
+     * Captures the current profile of the given class.
+     *
+     * @param clazz  The class
+     * @param digest The digest of the class file (see {@link #digest(byte[])})
+     * @param runs   The number of warmup runs that produced the profile
+     * @return the profile
+     */
+    static RecordedProfile capture(Class<?> clazz, byte[] digest, int runs) {
+        Map<String, Map<Integer, Entry>> methods = new LinkedHashMap<>();
+
+        for (HotSpotResolvedJavaMethod method : AdaptiveWarmup.methodsOf(clazz)) {
+            ProfilingInfo info = method.getProfilingInfo();
+            Map<Integer, Entry> entries = new LinkedHashMap<>();
+
+            for (int bci = 0; bci < method.getCodeSize(); bci++) {
+                int count = info.getExecutionCount(bci);
+                double branch = info.getBranchTakenProbability(bci);
+                JavaTypeProfile profile = info.getTypeProfile(bci);
+                if (count < 0 && branch < 0 && profile == null)
+                    continue;
+
+                Map<String, Double> types = new LinkedHashMap<>();
+                if (profile != null)
+                    for (JavaTypeProfile.ProfiledType type : profile.getTypes())
+                        types.put(type.getType().getName(), type.getProbability());
+
+                entries.put(bci, new Entry(
+                        count,
+                        branch,
+                        types,
+                        profile == null ? 0 : profile.getNotRecordedProbability()
+                ));
+            }
+
+            if (!entries.isEmpty())
+                methods.put(format(method), entries);
+        }
+
+        return new RecordedProfile(digest, runs, methods);
+    }
+
+    /**
+     * Determines the digest that identifies the class file of a profile.
+     *
+     * @param classFile The contents of the class file
+     * @return the SHA-256 digest of the class file
+     */
+    static byte[] digest(byte[] classFile) {
+        return OutputCapture.newDigest().digest(classFile);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Configuration
+
+    /**
+     * Enables recording and / or replaying profiles.
+     *
+     * @param recording Whether the profile of each class is stored after
+     *                  its warmup
+     * @param replaying Whether stored profiles determine the warmup
+     */
+    public static void configure(boolean recording, boolean replaying) {
+        RecordedProfile.recording = recording;
+        RecordedProfile.replaying = replaying;
+    }
+
+    /**
+     * @return {@code true} if profiles are recorded
+     */
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * @return {@code true} if recorded profiles are replayed
+     */
+    public static boolean isReplaying() {
+        return replaying;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * @return the number of warmup runs that produced the profile
+     */
+    int runs() {
+        return runs;
+    }
+
+    /**
+     * Compares this (recorded) profile to the given (current) one.
+     *
+     * @param actual The current profile
+     * @return the description of the first difference
+     * (or {@code null} if both profiles are equal)
+     */
+    String compare(RecordedProfile actual) {
+        if (!methods.keySet().equals(actual.methods.keySet()))
+            return "Profiled methods differ: " + methods.keySet() + " vs. " + actual.methods.keySet();
+
+        for (Map.Entry<String, Map<Integer, Entry>> method : methods.entrySet()) {
+            Map<Integer, Entry> expected = method.getValue();
+            Map<Integer, Entry> current = actual.methods.get(method.getKey());
+
+            if (!expected.keySet().equals(current.keySet()))
+                return method.getKey() + " - Profiled bytecodes differ";
+
+            for (Map.Entry<Integer, Entry> entry : expected.entrySet()) {
+                Entry e = entry.getValue();
+                Entry c = current.get(entry.getKey());
+
+                String difference = null;
+                if (Math.abs(e.count - c.count) > TOLERANCE * Math.max(Math.abs(e.count), 1))
+                    difference = "execution count " + e.count + " vs. " + c.count;
+                else if (Math.abs(e.branch - c.branch) > TOLERANCE)
+                    difference = "branch probability " + e.branch + " vs. " + c.branch;
+                else if (!e.types.keySet().equals(c.types.keySet()))
+                    difference = "receiver types " + e.types.keySet() + " vs. " + c.types.keySet();
+                else if (e.types.keySet().stream().anyMatch(t -> Math.abs(e.types.get(t) - c.types.get(t)) > TOLERANCE)
+                        || Math.abs(e.notRecorded - c.notRecorded) > TOLERANCE)
+                    difference = "type probabilities " + e.types + " vs. " + c.types;
+
+                if (difference != null)
+                    return String.format("%s@%d - %s", method.getKey(), entry.getKey(), difference);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes the profile to the given file. The file is replaced
+     * atomically, so that an interrupted write never leaves a truncated
+     * profile behind.
+     *
+     * @param file The target file
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeShort(digest.length);
+            out.write(digest);
+            out.writeInt(runs);
+            out.writeInt(methods.size());
+
+            for (Map.Entry<String, Map<Integer, Entry>> method : methods.entrySet()) {
+                out.writeUTF(method.getKey());
+                out.writeInt(method.getValue().size());
+
+                for (Map.Entry<Integer, Entry> entry : method.getValue().entrySet()) {
+                    Entry e = entry.getValue();
+                    out.writeShort(entry.getKey());
+                    out.writeInt(e.count);
+                    out.writeDouble(e.branch);
+                    out.writeDouble(e.notRecorded);
+                    out.writeShort(e.types.size());
+                    for (Map.Entry<String, Double> type : e.types.entrySet()) {
+                        out.writeUTF(type.getKey());
+                        out.writeDouble(type.getValue());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the profile from the given file.
+     * Profiles of another format version or of another class file are
+     * ignored.
+     *
+     * @param file   The profile file
+     * @param digest The digest of the current class file
+     *               (see {@link #digest(byte[])})
+     * @return the profile (or {@code null} if the file does not exist or
+     * does not match the class file)
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    static RecordedProfile read(Path file, byte[] digest) throws IOException {
+        if (!Files.exists(file))
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file + " is not a recorded profile");
+
+            int version = in.readInt();
+            if (version != VERSION) {
+                logger.warning(String.format("Ignoring %s - recorded in format version %d instead of %d", file, version, VERSION));
+                return null;
+            }
+
+            byte[] recorded = new byte[in.readUnsignedShort()];
+            in.readFully(recorded);
+            if (!Arrays.equals(recorded, digest)) {
+                logger.warning(String.format("Ignoring %s - recorded for another class file", file));
+                return null;
+            }
+
+            int runs = in.readInt();
+            int methodCount = in.readInt();
+            Map<String, Map<Integer, Entry>> methods = new LinkedHashMap<>();
+
+            for (int m = 0; m < methodCount; m++) {
+                String method = in.readUTF();
+                int entryCount = in.readInt();
+                Map<Integer, Entry> entries = new LinkedHashMap<>();
+
+                for (int i = 0; i < entryCount; i++) {
+                    int bci = in.readUnsignedShort();
+                    int count = in.readInt();
+                    double branch = in.readDouble();
+                    double notRecorded = in.readDouble();
+                    int typeCount = in.readUnsignedShort();
+
+                    Map<String, Double> types = new LinkedHashMap<>();
+                    for (int t = 0; t < typeCount; t++)
+                        types.put(in.readUTF(), in.readDouble());
+
+                    entries.put(bci, new Entry(count, branch, types, notRecorded));
+                }
+
+                methods.put(method, entries);
+            }
+
+            return new RecordedProfile(recorded, runs, methods);
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
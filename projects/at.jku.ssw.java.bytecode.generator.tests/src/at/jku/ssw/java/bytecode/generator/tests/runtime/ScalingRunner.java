@@ -0,0 +1,114 @@
+package at.jku.ssw.java.bytecode.generator.tests.runtime;
+
+import at.jku.ssw.java.bytecode.generator.tests.loading.ClassSource;
+import at.jku.ssw.java.bytecode.generator.tests.results.CompilationResult;
+import at.jku.ssw.java.bytecode.generator.tests.results.CompilationSample;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.runtime.JVMCI;
+import org.graalvm.compiler.hotspot.HotSpotGraalCompiler;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * {@link CompiledRunner} that only measures how long it takes to compile
+ * a class and how large the resulting code is.
+ * The methods are compiled without profiling information on the calling
+ * thread so that the compile times of different classes are comparable.
+ */
+public class ScalingRunner extends CompiledRunner {
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(ScalingRunner.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Initializes a new measuring compiler wrapper.
+     *
+     * @param classes  The source from which class files are loaded
+     * @param runtime  The runtime reference
+     * @param compiler The Graal compiler reference
+     */
+    public ScalingRunner(ClassSource classes,
+                         HotSpotJVMCIRuntime runtime,
+                         HotSpotGraalCompiler compiler) {
+        super(classes, runtime, compiler);
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Measurement methods
+
+    /**
+     * Compiles all methods of the class that is identified by the given
+     * name and discards the installed code again.
+     *
+     * @param className The name of the class
+     * @return the bytecode size, installed code size and compile time
+     * of the whole class
+     * @throws Exception if the class cannot be loaded or compiled
+     */
+    public final CompilationSample measure(String className) throws Exception {
+        Class<?> clazz = reloadClass(className);
+
+        final long start = System.nanoTime();
+        CompilationResult compiled = compile(clazz, false);
+        final long elapsed = System.nanoTime() - start;
+
+        long installedCodeSize = compiled.installedCodeSize();
+
+        invalidate(compiled);
+
+        return new CompilationSample(bytecodeSize(clazz), installedCodeSize, elapsed);
+    }
+
+    /**
+     * Determines the total bytecode size of all methods, constructors and
+     * the class initializer of the given class.
+     *
+     * @param clazz The class
+     * @return the sum of the bytecode sizes
+     */
+    private static long bytecodeSize(Class<?> clazz) {
+        MetaAccessProvider metaAccess = JVMCI.getRuntime().getHostJVMCIBackend().getMetaAccess();
+
+        return Stream.concat(
+                Stream.of(
+                        clazz.getDeclaredConstructors(),
+                        clazz.getDeclaredMethods())
+                        .flatMap(Arrays::stream)
+                        .map(metaAccess::lookupJavaMethod),
+                Stream.of(
+                        metaAccess.lookupJavaType(clazz).getClassInitializer()))
+                .filter(Objects::nonNull)
+                .mapToLong(ResolvedJavaMethod::getCodeSize)
+                .sum();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Logger logger() {
+        return logger;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
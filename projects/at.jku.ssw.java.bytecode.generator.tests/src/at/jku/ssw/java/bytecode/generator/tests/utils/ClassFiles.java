@@ -0,0 +1,221 @@
+package at.jku.ssw.java.bytecode.generator.tests.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides helpers to inspect raw class files without loading them.
+ */
+public final class ClassFiles {
+    private ClassFiles() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The magic number of class files.
+     */
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /**
+     * The size of the magic number, the version and the constant pool
+     * count.
+     */
+    private static final int HEADER_SIZE = 10;
+
+    /**
+     * The constant pool tag of UTF-8 entries.
+     */
+    private static final int UTF8 = 1;
+
+    /**
+     * The constant pool tag of class entries.
+     */
+    private static final int CLASS = 7;
+
+    /**
+     * The placeholder that replaces the class name when normalizing.
+     */
+    private static final String PLACEHOLDER = "$";
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Nested types
+
+    /**
+     * Receives the constant pool entries while a class file is parsed.
+     */
+    @FunctionalInterface
+    private interface EntryVisitor {
+        /**
+         * @param index The index of the entry
+         * @param tag   The tag of the entry
+         * @param in    The stream that is positioned at the entry's contents
+         *              (which must be consumed completely)
+         * @throws IOException if the entry cannot be read
+         */
+        void visit(int index, int tag, DataInputStream in) throws IOException;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Inspection
+
+    /**
+     * Reads the name of the class that the given class file defines.
+     *
+     * @param classFile The contents of the class file
+     * @return the binary name of the class
+     * @throws IOException if the class file is invalid
+     */
+    public static String nameOf(byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+
+        // only UTF-8 and class entries are required to resolve the name
+        final Map<Integer, String> utf8 = new HashMap<>();
+        final Map<Integer, Integer> classes = new HashMap<>();
+        readConstantPool(in, (index, tag, entry) -> {
+            if (tag == UTF8)
+                utf8.put(index, entry.readUTF());
+            else if (tag == CLASS)
+                classes.put(index, entry.readUnsignedShort());
+            else
+                entry.skipBytes(size(tag));
+        });
+
+        // skip the access flags
+        in.readUnsignedShort();
+        String name = utf8.get(classes.get(in.readUnsignedShort()));
+        if (name == null)
+            throw new IOException("Invalid class file");
+
+        return name.replace('/', '.');
+    }
+
+    /**
+     * Computes a digest of the given class file that does not depend on the
+     * name of the class. All occurrences of the class name in the constant
+     * pool (e.g. in descriptors or the source file name) are replaced by a
+     * placeholder, so two classes that only differ in their names have the
+     * same digest.
+     *
+     * @param classFile The contents of the class file
+     * @return the digest of the normalized class file
+     * @throws IOException if the class file is invalid
+     */
+    public static byte[] normalizedDigest(byte[] classFile) throws IOException {
+        final String internalName = nameOf(classFile).replace('.', '/');
+        final String simpleName = internalName.substring(internalName.lastIndexOf('/') + 1);
+
+        MessageDigest digest = OutputCapture.newDigest();
+        final DataOutputStream out = new DataOutputStream(new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }, digest));
+
+        // the header (magic, version and constant pool count) is unchanged
+        out.write(classFile, 0, HEADER_SIZE);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        readConstantPool(in, (index, tag, entry) -> {
+            out.writeByte(tag);
+            if (tag == UTF8) {
+                out.writeUTF(entry.readUTF()
+                        .replace(internalName, PLACEHOLDER)
+                        .replace(simpleName, PLACEHOLDER));
+            } else {
+                byte[] contents = new byte[size(tag)];
+                entry.readFully(contents);
+                out.write(contents);
+            }
+        });
+
+        // the remainder of the class file only refers to constant pool
+        // indices and therefore does not contain the name
+        byte[] rest = new byte[in.available()];
+        in.readFully(rest);
+        out.write(rest);
+        out.flush();
+
+        return digest.digest();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * Validates the header of a class file and visits all entries of its
+     * constant pool. Afterwards, the stream is positioned at the access
+     * flags.
+     *
+     * @param in      The class file
+     * @param entries The visitor of the individual entries
+     * @throws IOException if the class file is invalid
+     */
+    private static void readConstantPool(DataInputStream in, EntryVisitor entries) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("Invalid class file");
+
+        // skip the version
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        int n = in.readUnsignedShort();
+        for (int i = 1; i < n; i++) {
+            int tag = in.readUnsignedByte();
+            entries.visit(i, tag, in);
+
+            // longs and doubles occupy two entries
+            if (tag == 5 || tag == 6)
+                i++;
+        }
+    }
+
+    /**
+     * Determines the size of the contents of a (non UTF-8) constant pool
+     * entry.
+     *
+     * @param tag The tag of the entry
+     * @return the number of bytes that follow the tag
+     * @throws IOException if the tag is invalid
+     */
+    private static int size(int tag) throws IOException {
+        switch (tag) {
+            case CLASS:
+            case 8:     // string
+            case 16:    // method type
+            case 19:    // module
+            case 20:    // package
+                return 2;
+            case 15:    // method handle
+                return 3;
+            case 3:     // integer
+            case 4:     // float
+            case 9:     // field reference
+            case 10:    // method reference
+            case 11:    // interface method reference
+            case 12:    // name and type
+            case 17:    // dynamic
+            case 18:    // invoke dynamic
+                return 4;
+            case 5:     // long
+            case 6:     // double
+                return 8;
+            default:
+                throw new IOException("Invalid constant pool tag " + tag);
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -1,8 +1,15 @@
 package at.jku.ssw.java.bytecode.generator.tests.utils;
 
+import at.jku.ssw.java.bytecode.generator.tests.events.ExecuteEvent;
+import at.jku.ssw.java.bytecode.generator.tests.events.InterpretEvent;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Phase;
 import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionResult;
+import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionTimeoutException;
 
 import java.io.*;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -12,55 +19,230 @@ public final class Executor {
     private Executor() {
     }
 
+    /**
+     * The multiplexer that replaces STDOUT.
+     */
+    private static ThreadLocalOutputStream out;
+
+    /**
+     * The multiplexer that replaces STDERR.
+     */
+    private static ThreadLocalOutputStream err;
+
+    /**
+     * Replaces STDOUT and STDERR with thread-local multiplexers
+     * (unless this already happened).
+     */
+    private static synchronized void install() {
+        if (out != null)
+            return;
+
+        out = new ThreadLocalOutputStream(System.out);
+        err = new ThreadLocalOutputStream(System.err);
+
+        System.setOut(new PrintStream(out, true));
+        System.setErr(new PrintStream(err, true));
+    }
+
     /**
      * Runs the given supplier and stores the result as well as any output
      * that was printed to STDOUT or STDERR.
+     * The output is captured per thread, therefore several tasks may be
+     * executed concurrently.
+     * The execution is recorded for the given phase (both in the
+     * {@link Metrics} and as a flight recorder event).
+     * If the {@link Watchdog} stops the execution, the result describes an
+     * {@link ExecutionTimeoutException} and its output only consists of
+     * the exception message (since the partial output is arbitrary).
      *
-     * @param task The task to run
+     * @param clazz The class that is executed
+     * @param phase The execution phase
+     *              ({@link Phase#INTERPRET} or one of the compiled phases)
+     * @param task  The task to run
      * @return The result of the task (including exceptions and output)
      * @throws IOException if the output cannot be captured
      */
-    public static ExecutionResult captureIO(Supplier<Object> task)
+    public static ExecutionResult captureIO(Class<?> clazz, Phase phase, Supplier<Object> task)
             throws IOException {
 
-        // store the previous IO settings
-        final PrintStream outDefault = System.out;
-        final PrintStream errDefault = System.err;
+        install();
+
+        // the interpreter and compiled code are recorded as different events
+        InterpretEvent interpretEvent = null;
+        ExecuteEvent executeEvent = null;
+        if (phase == Phase.INTERPRET) {
+            interpretEvent = new InterpretEvent();
+            interpretEvent.begin();
+        } else {
+            executeEvent = new ExecuteEvent();
+            executeEvent.begin();
+        }
+        final long start = System.nanoTime();
 
         // the actual result
         Object result = null;
 
-        // the captured output
-        String out;
+        // the captured output, its digest and line count
+        byte[] out;
+        byte[] digest = null;
+        long lines = 0;
 
         // any thrown exception
         Throwable exception = null;
 
-        // create a print stream that writes to a byte array
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream();
-             PrintStream ps = new PrintStream(os)) {
+        // the previous capture targets of this thread
+        OutputStream outDefault = null;
+        OutputStream errDefault = null;
+
+        // stops the execution if it exceeds its budgets
+        Watchdog.Watch watch = Watchdog.watch();
 
-            // redirect STDOUT and STDERR to the custom print stream
-            System.setOut(ps);
-            System.setErr(ps);
+        // create a stream that collects and digests the output of this thread
+        try (OutputCapture os = new OutputCapture()) {
+
+            // redirect STDOUT and STDERR of this thread to the stream
+            outDefault = Executor.out.capture(os);
+            errDefault = Executor.err.capture(os);
 
             // run the supplier
-            result = task.get();
+            try {
+                result = task.get();
+            } finally {
+                watch.stop();
+                if (watch.timeout() != null)
+                    drain();
+            }
+
+            // reflective calls report the stop as their own exception
+            ExecutionTimeoutException timeout = watch.timeout();
+            if (timeout != null)
+                throw timeout;
 
             // and get the output
-            out = os.toString();
+            System.out.flush();
+            System.err.flush();
+            out = os.bytes();
+            digest = os.digest();
+            lines = os.lines();
+        } catch (ExecutionTimeoutException e) {
+            out = e.getMessage().getBytes();
+            exception = e;
+        } catch (ThreadDeath d) {
+            // only stops by the watchdog are expected
+            ExecutionTimeoutException timeout = watch.timeout();
+            if (timeout == null)
+                throw d;
+
+            out = timeout.getMessage().getBytes();
+            exception = timeout;
         } catch (RuntimeException e) {
             // capture the stack trace
             StringWriter w = new StringWriter();
             e.printStackTrace(new PrintWriter(w));
-            out = w.toString();
+            out = w.toString().getBytes();
             exception = e;
+        } finally {
+            // reset the IO channels of this thread
+            Executor.err.capture(errDefault);
+            Executor.out.capture(outDefault);
         }
 
-        // reset the IO channels
-        System.setErr(errDefault);
-        System.setOut(outDefault);
+        long duration = Metrics.record(Metrics.templateOf(clazz), phase, start);
 
-        return new ExecutionResult(result, out, exception);
+        if (interpretEvent != null) {
+            interpretEvent.className = clazz.getName();
+            interpretEvent.outputSize = out.length;
+            interpretEvent.commit();
+        } else {
+            executeEvent.className = clazz.getName();
+            executeEvent.profiled = phase == Phase.EXECUTE_OPTIMIZED;
+            executeEvent.outputSize = out.length;
+            executeEvent.commit();
+        }
+
+        return new ExecutionResult(result, out, digest, lines, exception, duration);
+    }
+
+    /**
+     * Runs the given task repeatedly and measures the execution time of
+     * each run. Any output of the task is discarded and exceptions are
+     * ignored. The given reset action is run (untimed) before each run.
+     * If the {@link Watchdog} stops a run, the remaining runs are
+     * skipped and recorded with the time of the stopped run.
+     * If the given validity check fails after a run, that run and all
+     * remaining runs are discarded, i.e. the returned array only contains
+     * the times of the runs before it.
+     *
+     * @param task  The task to run
+     * @param reset The action that restores the initial state of the task
+     * @param valid The check whether a run was valid
+     * @param runs  The number of runs
+     * @return the execution times of the valid runs in nanoseconds
+     */
+    public static long[] time(Supplier<Object> task, Runnable reset, BooleanSupplier valid, int runs) {
+        install();
+
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        long[] times = new long[runs];
+
+        OutputStream outDefault = Executor.out.capture(discard);
+        OutputStream errDefault = Executor.err.capture(discard);
+        try {
+            for (int i = 0; i < runs; i++) {
+                reset.run();
+
+                final long start = System.nanoTime();
+                Watchdog.Watch watch = Watchdog.watch();
+                try {
+                    task.get();
+                } catch (RuntimeException ignored) {
+                    // only the time is of interest
+                } catch (ThreadDeath d) {
+                    if (watch.timeout() == null)
+                        throw d;
+                } finally {
+                    watch.stop();
+                    if (watch.timeout() != null)
+                        drain();
+                }
+                times[i] = System.nanoTime() - start;
+
+                if (!valid.getAsBoolean())
+                    return Arrays.copyOf(times, i);
+
+                if (watch.timeout() != null) {
+                    Arrays.fill(times, i, runs, times[i]);
+                    break;
+                }
+            }
+        } finally {
+            Executor.err.capture(errDefault);
+            Executor.out.capture(outDefault);
+        }
+
+        return times;
+    }
+
+    /**
+     * Writes any output that a stopped execution left in the buffers of
+     * {@link System#out} and {@link System#err} to the current thread's
+     * capture target. The print streams are shared by all threads,
+     * therefore the next thread that prints would receive it otherwise.
+     */
+    private static void drain() {
+        // printing flushes the character buffers, flushing only the bytes
+        System.out.print("");
+        System.out.flush();
+        System.err.print("");
+        System.err.flush();
     }
 }
@@ -0,0 +1,116 @@
+package at.jku.ssw.java.bytecode.generator.tests.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Output stream that buffers the captured output and computes a rolling
+ * digest as well as the number of lines while it is written.
+ * This allows to compare outputs without inspecting their contents.
+ */
+public final class OutputCapture extends OutputStream {
+
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The digest algorithm that is used to summarize the output.
+     */
+    public static final String ALGORITHM = "SHA-256";
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The buffered output.
+     */
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    /**
+     * The rolling digest of the output.
+     */
+    private final MessageDigest digest = newDigest();
+
+    /**
+     * The number of line feeds that were written.
+     */
+    private long lines;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * @return the captured output
+     */
+    public byte[] bytes() {
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Completes the digest. This must only be called once.
+     *
+     * @return the digest of the captured output
+     */
+    public byte[] digest() {
+        return digest.digest();
+    }
+
+    /**
+     * @return the number of line feeds in the captured output
+     */
+    public long lines() {
+        return lines;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Static helpers
+
+    /**
+     * Creates a new digest instance.
+     *
+     * @return a new {@link MessageDigest} for {@link #ALGORITHM}
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support the algorithm
+            throw new AssertionError(e);
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(int b) {
+        buffer.write(b);
+        digest.update((byte) b);
+        if (b == '\n')
+            lines++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buffer.write(b, off, len);
+        digest.update(b, off, len);
+        for (int i = off; i < off + len; i++)
+            if (b[i] == '\n')
+                lines++;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -2,6 +2,7 @@ package at.jku.ssw.java.bytecode.generator.tests.utils;
 
 import at.jku.ssw.java.bytecode.generator.tests.comparison.Comparing;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -57,6 +58,21 @@ public final class StaticFieldGuard implements Comparing {
         return new StaticFieldGuard(getStaticFieldValues(clazz));
     }
 
+    /**
+     * Creates a new static guard for the properties of the given class
+     * that keeps copies of any arrays, so that the current state of the
+     * class can be restored later on (see {@link #restore(Class)}).
+     *
+     * @param clazz The target class
+     * @return a new {@link StaticFieldGuard} that holds the current state
+     * of the class
+     */
+    public static StaticFieldGuard snapshot(Class<?> clazz) {
+        Map<String, Object> fields = getStaticFieldValues(clazz);
+        fields.replaceAll((k, v) -> copy(v));
+        return new StaticFieldGuard(fields);
+    }
+
     // endregion
     //-------------------------------------------------------------------------
     // region Instance methods
@@ -75,6 +91,31 @@ public final class StaticFieldGuard implements Comparing {
         logger.info("Static variables match");
     }
 
+    /**
+     * Resets the static fields of the given class to the values of this
+     * guard. Final fields cannot be reassigned, therefore only the
+     * contents of final arrays are restored.
+     *
+     * @param clazz The class whose fields are reset
+     */
+    public void restore(Class<?> clazz) {
+        Arrays.stream(clazz.getDeclaredFields())
+                .filter(f -> Modifier.isStatic(f.getModifiers()))
+                .filter(f -> fields.containsKey(f.getName()))
+                .forEach(f -> {
+                    f.setAccessible(true);
+                    Object value = fields.get(f.getName());
+                    try {
+                        if (!Modifier.isFinal(f.getModifiers()))
+                            f.set(null, copy(value));
+                        else if (value != null && value.getClass().isArray())
+                            copyInto(value, f.get(null));
+                    } catch (IllegalAccessException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
     // endregion
     //-------------------------------------------------------------------------
     // region Private helpers
@@ -103,6 +144,41 @@ public final class StaticFieldGuard implements Comparing {
                 );
     }
 
+    /**
+     * Copies the given value if it is an array (including any nested
+     * arrays).
+     *
+     * @param value The value that is copied
+     * @return a copy of the array or the value itself if it is no array
+     */
+    private static Object copy(Object value) {
+        if (value == null || !value.getClass().isArray())
+            return value;
+
+        int length = Array.getLength(value);
+        Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+        for (int i = 0; i < length; i++)
+            Array.set(copy, i, copy(Array.get(value, i)));
+
+        return copy;
+    }
+
+    /**
+     * Overwrites the elements of the given target array with copies of the
+     * elements of the source array.
+     *
+     * @param source The array whose elements are copied
+     * @param target The array that is overwritten
+     */
+    private static void copyInto(Object source, Object target) {
+        if (target == null || target.getClass() != source.getClass())
+            return;
+
+        int length = Math.min(Array.getLength(source), Array.getLength(target));
+        for (int i = 0; i < length; i++)
+            Array.set(target, i, copy(Array.get(source, i)));
+    }
+
     // endregion
     //-------------------------------------------------------------------------
     // region Overridden methods
@@ -0,0 +1,100 @@
+package at.jku.ssw.java.bytecode.generator.tests.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that multiplexes writes based on the writing thread.
+ * Threads that registered a capture target write to their own target,
+ * all other threads write to the fallback stream.
+ * This allows to capture the output of several concurrently executed
+ * programs via the global {@link System#out} and {@link System#err}.
+ */
+public final class ThreadLocalOutputStream extends OutputStream {
+
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The stream that receives the output of threads without capture target.
+     */
+    private final OutputStream fallback;
+
+    /**
+     * The capture target of the current thread (if any).
+     */
+    private final ThreadLocal<OutputStream> target = new ThreadLocal<>();
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Initialization
+
+    /**
+     * Creates a new multiplexing stream.
+     *
+     * @param fallback The stream that receives any uncaptured output
+     */
+    public ThreadLocalOutputStream(OutputStream fallback) {
+        this.fallback = fallback;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Instance methods
+
+    /**
+     * Redirects the output of the current thread to the given stream.
+     *
+     * @param os The capture target or {@code null} to reset the thread's
+     *           output to the fallback stream
+     * @return the previous capture target of this thread
+     * (or {@code null} if there was none)
+     */
+    public OutputStream capture(OutputStream os) {
+        OutputStream previous = target.get();
+        if (os == null)
+            target.remove();
+        else
+            target.set(os);
+        return previous;
+    }
+
+    /**
+     * @return the stream that the current thread writes to
+     */
+    private OutputStream current() {
+        OutputStream os = target.get();
+        return os == null ? fallback : os;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Overridden methods
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(int b) throws IOException {
+        current().write(b);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        current().write(b, off, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException {
+        current().flush();
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}
@@ -0,0 +1,290 @@
+package at.jku.ssw.java.bytecode.generator.tests.utils;
+
+import at.jku.ssw.java.bytecode.generator.tests.metrics.Metrics;
+import at.jku.ssw.java.bytecode.generator.tests.results.ExecutionTimeoutException;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stops executions that exceed their wall-clock or allocation budget.
+ * Each execution is registered via {@link #watch()} and polled by a single
+ * background thread. Once a budget is exceeded, the executing thread is
+ * stopped, which unwinds both interpreted and compiled frames at their
+ * next safepoint. The execution is then reported as
+ * {@link ExecutionTimeoutException}. JVMs that do not support stopping
+ * threads let such executions run to completion, but still report them
+ * as exceeding their budget.
+ * The watchdog is disabled unless {@link #enable(long, long)} is called.
+ */
+public final class Watchdog {
+    private Watchdog() {
+    }
+
+    //-------------------------------------------------------------------------
+    // region Logging
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(Watchdog.class.getName());
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Constants
+
+    /**
+     * The interval in milliseconds in which the executions are polled.
+     */
+    private static final long POLL_INTERVAL = 10;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Nested types
+
+    /**
+     * A single watched execution.
+     */
+    public static final class Watch {
+
+        /**
+         * The executing thread.
+         */
+        private final Thread thread;
+
+        /**
+         * The time when the execution started.
+         */
+        private final long start = System.nanoTime();
+
+        /**
+         * The number of bytes that the thread allocated before the
+         * execution started (or {@code -1} if allocations are not measured).
+         */
+        private final long allocatedBefore;
+
+        /**
+         * The description of the exceeded budget
+         * (or {@code null} if the execution is within its budgets).
+         */
+        private volatile String exceeded;
+
+        /**
+         * Whether the execution already finished.
+         */
+        private boolean finished;
+
+        /**
+         * Starts watching the current thread.
+         */
+        private Watch() {
+            this.thread = Thread.currentThread();
+            this.allocatedBefore = allocationBudget > 0 ? allocatedBytes(thread) : -1;
+        }
+
+        /**
+         * Stops watching the execution. This must be called as soon as
+         * the execution finishes.
+         * If the execution was stopped, the {@link ThreadDeath} may still
+         * be pending (e.g. because the execution finished right before it
+         * arrived). It is delivered and discarded here, so that it cannot
+         * escape after the execution.
+         */
+        public void stop() {
+            try {
+                synchronized (this) {
+                    finished = true;
+                    watches.remove(this);
+                }
+
+                // a pending stop is delivered once the thread returns
+                // from a native method
+                if (exceeded != null)
+                    Thread.yield();
+            } catch (ThreadDeath d) {
+                if (exceeded == null)
+                    throw d;
+            }
+        }
+
+        /**
+         * @return the exception that describes the exceeded budget
+         * (or {@code null} if the execution was not stopped)
+         */
+        public ExecutionTimeoutException timeout() {
+            String message = exceeded;
+            return message == null ? null : new ExecutionTimeoutException(message);
+        }
+
+        /**
+         * Checks the budgets of the execution and stops it if any is
+         * exceeded.
+         */
+        @SuppressWarnings("deprecation")
+        private synchronized void poll() {
+            if (finished || exceeded != null)
+                return;
+
+            long elapsed = System.nanoTime() - start;
+            if (timeBudget > 0 && elapsed > timeBudget) {
+                exceeded = String.format("Time budget of %d ms exceeded", TimeUnit.NANOSECONDS.toMillis(timeBudget));
+            } else if (allocationBudget > 0 && allocatedBefore >= 0) {
+                long allocated = allocatedBytes(thread) - allocatedBefore;
+                if (allocated > allocationBudget)
+                    exceeded = String.format("Allocation budget of %d bytes exceeded", allocationBudget);
+            }
+
+            if (exceeded == null)
+                return;
+
+            watches.remove(this);
+            if (!stoppable) {
+                logger.warning(thread.getName() + " - " + exceeded);
+                return;
+            }
+
+            logger.warning(thread.getName() + " - " + exceeded + ", stopping execution");
+            Metrics.executionStopped();
+            try {
+                thread.stop();
+            } catch (UnsupportedOperationException e) {
+                // newer JVMs no longer support stopping threads
+                stoppable = false;
+                logger.warning("Threads cannot be stopped by this JVM, executions that exceed their budgets run to completion");
+            }
+        }
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Properties
+
+    /**
+     * The wall-clock budget of each execution in nanoseconds
+     * (or {@code 0} if it is unlimited).
+     */
+    private static volatile long timeBudget;
+
+    /**
+     * The allocation budget of each execution in bytes
+     * (or {@code 0} if it is unlimited).
+     */
+    private static volatile long allocationBudget;
+
+    /**
+     * Whether threads can be stopped (which is not supported by newer JVMs).
+     */
+    private static volatile boolean stoppable = true;
+
+    /**
+     * The executions that are currently watched.
+     */
+    private static final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The thread that polls the executions (or {@code null} if the
+     * watchdog is disabled).
+     */
+    private static ScheduledExecutorService timer;
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Configuration
+
+    /**
+     * Enables the watchdog.
+     *
+     * @param timeBudget       The wall-clock budget of each execution in
+     *                         milliseconds (or {@code 0} if it is unlimited)
+     * @param allocationBudget The number of bytes that each execution may
+     *                         allocate (or {@code 0} if it is unlimited)
+     */
+    public static synchronized void enable(long timeBudget, long allocationBudget) {
+        if (timeBudget < 0 || allocationBudget < 0)
+            throw new IllegalArgumentException("The execution budgets must at least be 0");
+
+        if (allocationBudget > 0 && allocatedBytes(Thread.currentThread()) < 0) {
+            logger.warning("Thread allocations cannot be measured, the allocation budget is ignored");
+            allocationBudget = 0;
+        }
+
+        Watchdog.timeBudget = TimeUnit.MILLISECONDS.toNanos(timeBudget);
+        Watchdog.allocationBudget = allocationBudget;
+
+        if (timer != null || (timeBudget == 0 && allocationBudget == 0))
+            return;
+
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        // an exception would cancel all further polls
+        timer.scheduleAtFixedRate(
+                () -> {
+                    try {
+                        watches.forEach(Watch::poll);
+                    } catch (RuntimeException e) {
+                        logger.log(Level.WARNING, "Polling the executions failed", e);
+                    }
+                },
+                POLL_INTERVAL,
+                POLL_INTERVAL,
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * @return {@code true} if executions are watched
+     */
+    public static synchronized boolean isEnabled() {
+        return timer != null;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Watching
+
+    /**
+     * Starts watching an execution on the current thread.
+     *
+     * @return the watch that must be stopped once the execution finishes
+     */
+    public static Watch watch() {
+        Watch watch = new Watch();
+        if (isEnabled())
+            watches.add(watch);
+        return watch;
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+    // region Private helpers
+
+    /**
+     * @param thread The thread
+     * @return the number of bytes that the thread allocated so far
+     * (or {@code -1} if this is not supported)
+     */
+    private static long allocatedBytes(Thread thread) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        if (!hotspot.isThreadAllocatedMemorySupported() || !hotspot.isThreadAllocatedMemoryEnabled())
+            return -1;
+
+        return hotspot.getThreadAllocatedBytes(thread.getId());
+    }
+
+    // endregion
+    //-------------------------------------------------------------------------
+}